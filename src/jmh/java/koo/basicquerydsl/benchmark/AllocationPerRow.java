@@ -0,0 +1,34 @@
+package koo.basicquerydsl.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 측정 스레드가 할당한 바이트를 조회한 행 수로 나눈 값 (행 하나를 dto로 만드는 데 드는 메모리)
+ * - -prof gc 의 gc.alloc.rate.norm(연산 하나당 바이트)은 데이터 크기에 따라 달라지므로 행 단위로 다시 계산한다.
+ * - HotSpot의 com.sun.management.ThreadMXBean 을 사용한다. (H2가 내장 모드라 쿼리 실행 중 할당도 같은 스레드에 잡힌다.)
+ */
+class AllocationPerRow {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private long startBytes;
+    private long rows;
+
+    void start() {
+        startBytes = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        rows = 0;
+    }
+
+    void addRows(int count) {
+        rows += count;
+    }
+
+    void report(String benchmark) {
+        long allocated = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - startBytes;
+        if (rows > 0) {
+            System.out.printf("%n# %s: %,d bytes/row (%,d rows)%n", benchmark, allocated / rows, rows);
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package koo.basicquerydsl.benchmark;
+
+import koo.basicquerydsl.BasicQuerydslApplication;
+import koo.basicquerydsl.service.MemberSeedLoader;
+import koo.basicquerydsl.service.MemberSeedSpec;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 벤치마크용 내장(in-memory) H2 + 애플리케이션 컨텍스트
+ * - H2 서버(tcp) 없이 돌도록 datasource를 mem으로 바꾸고, 측정을 방해하는 SQL 로그와 2차 캐시는 끈다.
+ * - 회원 수만큼 MemberSeedLoader로 샘플 데이터를 넣는다.
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    public BenchmarkDatabase(long members, int teams) {
+        this.context = new SpringApplicationBuilder(BasicQuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run( // 명령행 인자가 application.yml 보다 우선한다.
+                        "--spring.profiles.active=benchmark", // local 프로필(InitMember)이 뜨지 않게
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--member.statistics.enabled=false", // 시드 데이터 insert마다 통계를 갱신하지 않게
+                        "--member.full-text.enabled=false", // 시드 데이터 insert마다 전문 검색 색인 트리거가 돌지 않게
+                        "--logging.level.root=warn",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn");
+
+        context.getBean(MemberSeedLoader.class)
+                .load(new MemberSeedSpec(members, teams, MemberSeedSpec.TeamDistribution.ROUND_ROBIN, 50_000, 1));
+    }
+
+    public EntityManagerFactory entityManagerFactory() {
+        return context.getBean(EntityManagerFactory.class);
+    }
+
+    public void execute(String sql) { // DDL 등 (인덱스 삭제)
+        context.getBean(JdbcTemplate.class).execute(sql);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+}
@@ -0,0 +1,80 @@
+package koo.basicquerydsl.benchmark;
+
+import koo.basicquerydsl.dto.MemberColumns;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import koo.basicquerydsl.repository.MemberColumnarRepository;
+import koo.basicquerydsl.repository.MemberQueryDslRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 전체 회원의 나이 평균을 구할 때 MemberTeamDto 목록과 MemberColumns(기본형 배열)의 처리량, 행당 할당 바이트 비교
+ * - 실행: ./gradlew jmh -PjmhIncludes=ColumnarBenchmark -PjmhRows=100000,500000
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ColumnarBenchmark {
+
+    @Param({"100000"})
+    private int rows;
+
+    private BenchmarkDatabase database;
+    private MemberQueryDslRepository memberQueryDslRepository;
+    private MemberColumnarRepository memberColumnarRepository;
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private final AllocationPerRow allocation = new AllocationPerRow();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(rows, 100);
+        memberQueryDslRepository = database.getBean(MemberQueryDslRepository.class);
+        memberColumnarRepository = database.getBean(MemberColumnarRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        allocation.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration(BenchmarkParams params) {
+        allocation.report(params.getBenchmark() + " rows=" + rows);
+    }
+
+    @Benchmark
+    public double rows() {
+        List<MemberTeamDto> result = memberQueryDslRepository.searchByWhereParameter(condition);
+        long sum = 0;
+        for (MemberTeamDto dto : result) {
+            sum += dto.getAge();
+        }
+        allocation.addRows(result.size());
+        return (double) sum / result.size();
+    }
+
+    @Benchmark
+    public double columns() {
+        MemberColumns columns = memberColumnarRepository.fetchColumns(condition);
+        int[] ages = columns.getAges();
+        long sum = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            sum += ages[i];
+        }
+        allocation.addRows(columns.size());
+        return (double) sum / columns.size();
+    }
+
+}
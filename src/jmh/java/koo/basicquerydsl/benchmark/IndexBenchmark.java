@@ -0,0 +1,89 @@
+package koo.basicquerydsl.benchmark;
+
+import koo.basicquerydsl.dto.MemberCursorPage;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import koo.basicquerydsl.repository.MemberCursor;
+import koo.basicquerydsl.repository.MemberQueryDslRepository;
+import koo.basicquerydsl.repository.MemberSearchQueryBuilder;
+import koo.basicquerydsl.repository.MemberSprinDataJpaRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 인덱스(idx_member_username, idx_member_team_age, idx_member_age_id) 유무에 따른 검색 지연 시간 (before: indexes=false, after: indexes=true)
+ * - 팀 100개에 회원 100만명, team(name)은 자연 키 unique 제약조건이라 양쪽 모두 있다.
+ * - 실행: ./gradlew jmh -PjmhIncludes=IndexBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class IndexBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"false", "true"})
+    private boolean indexes;
+
+    private BenchmarkDatabase database;
+    private MemberQueryDslRepository repository;
+    private MemberSearchQueryBuilder queryBuilder;
+    private MemberSprinDataJpaRepository springDataRepository;
+    private String ageCursor;
+
+    private final MemberSearchCondition username = new MemberSearchCondition();
+    private final MemberSearchCondition teamName = new MemberSearchCondition();
+    private final MemberSearchCondition teamNameAndAge = new MemberSearchCondition();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(rows, 100);
+        if (!indexes) {
+            database.execute("drop index idx_member_username");
+            database.execute("drop index idx_member_team_age");
+            database.execute("drop index idx_member_age_id");
+        }
+        repository = database.getBean(MemberQueryDslRepository.class);
+        queryBuilder = database.getBean(MemberSearchQueryBuilder.class);
+        springDataRepository = database.getBean(MemberSprinDataJpaRepository.class);
+
+        username.setUsername("member777777");
+        teamName.setTeamName("teamB");
+        teamNameAndAge.setTeamName("teamB");
+        teamNameAndAge.setAgeGoe(30);
+        teamNameAndAge.setAgeLoe(32);
+        ageCursor = MemberCursor.after(MemberCursor.SortKey.AGE, new MemberTeamDto((long) rows / 2, null, 50, null, null)).encode(); // 나이 0 ~ 99, 중간쯤 페이지
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> usernameEq() {
+        return repository.searchByWhereParameter(username);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> teamNameAndAgeRange() {
+        return repository.searchByWhereParameter(teamNameAndAge);
+    }
+
+    @Benchmark
+    public MemberCursorPage ageCursorPage() { // /v4 AGE 다음 페이지
+        return springDataRepository.searchByCursor(new MemberSearchCondition(), MemberCursor.SortKey.AGE, ageCursor, 20);
+    }
+
+    @Benchmark
+    public long countByTeamName() {
+        return queryBuilder.count(teamName).fetchCount();
+    }
+
+}
@@ -0,0 +1,95 @@
+package koo.basicquerydsl.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import koo.basicquerydsl.dto.MemberJsonSerializers;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * List<MemberTeamDto>를 JSON으로 쓰는 세가지 방법의 처리량과 행당 할당 바이트 비교 (/v1/members 응답 직렬화)
+ * - 연산 하나 = 회원 rows명 목록 전체를 출력 스트림에 쓰기 (DB 없이 직렬화만, 출력은 버린다.)
+ * - 실행: ./gradlew jmh -PjmhIncludes=JsonSerializationBenchmark -PjmhRows=1000,100000
+ * - 결과: ops/s(build/results/jmh/results.txt), gc.alloc.rate.norm(-prof gc), 행당 바이트는 "# ... bytes/row" 로 출력
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    private List<MemberTeamDto> members;
+    private final ObjectMapper reflective = new ObjectMapper();
+    private final ObjectMapper streaming = new ObjectMapper().registerModule(new SimpleModule() // 스프링의 @JsonComponent 등록과 같은 상태
+            .addSerializer(new MemberJsonSerializers.MemberTeamDtoSerializer()));
+    private final OutputStream out = new DiscardingOutputStream();
+    private final AllocationPerRow allocation = new AllocationPerRow();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        members = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long teamId = i % 10;
+            members.add(new MemberTeamDto((long) i, "member" + i, i % 100, teamId == 0 ? null : teamId, teamId == 0 ? null : "team" + teamId));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        allocation.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration(BenchmarkParams params) {
+        allocation.report(params.getBenchmark() + " rows=" + rows);
+    }
+
+    @Benchmark
+    public void beanSerializer() throws IOException { // 기본 ObjectMapper (BeanSerializer, 리플렉션)
+        reflective.writeValue(out, members);
+        allocation.addRows(rows);
+    }
+
+    @Benchmark
+    public void jsonComponent() throws IOException { // ObjectMapper + MemberTeamDtoSerializer (실제 응답 경로)
+        streaming.writeValue(out, members);
+        allocation.addRows(rows);
+    }
+
+    @Benchmark
+    public void generator() throws IOException { // SerializerProvider 없이 JsonGenerator에 바로 (NDJSON 내보내기 경로)
+        try (JsonGenerator generator = reflective.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            for (MemberTeamDto member : members) {
+                MemberJsonSerializers.write(member, generator);
+            }
+            generator.writeEndArray();
+        }
+        allocation.addRows(rows);
+    }
+
+    private static final class DiscardingOutputStream extends OutputStream { // close 되어도 계속 쓸 수 있게
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package koo.basicquerydsl.benchmark;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import koo.basicquerydsl.dto.MemberDto;
+import koo.basicquerydsl.dto.QMemberDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static koo.basicquerydsl.entity.QMember.member;
+
+/**
+ * MemberDto로 조회하는 다섯가지 방법의 처리량과 행당 할당 바이트 비교 (QuerydslIntermediateLevelTest의 dtoProjection ~ dtoProjection4, findDtoByJPQL)
+ * - 연산 하나 = 회원 rows명 전체를 dto로 조회
+ * - 실행: ./gradlew jmh -PjmhIncludes=ProjectionBenchmark -PjmhRows=1000,100000
+ * - 결과: ops/s(build/results/jmh/results.txt), gc.alloc.rate.norm(-prof gc), 행당 바이트는 "# ... bytes/row" 로 출력
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    private BenchmarkDatabase database;
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private JPAQueryFactory queryFactory;
+    private final AllocationPerRow allocation = new AllocationPerRow();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(rows, 10);
+        emf = database.entityManagerFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        allocation.start();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration(BenchmarkParams params) {
+        allocation.report(params.getBenchmark() + " rows=" + rows);
+    }
+
+    @Setup(Level.Invocation)
+    public void openEntityManager() { // 매 연산마다 새 영속성 컨텍스트 (요청 하나와 같은 조건)
+        em = emf.createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeEntityManager() {
+        em.close();
+    }
+
+    @Benchmark
+    public List<MemberDto> bean() { // setter
+        return record(queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> fields() { // 필드에 바로 (리플렉션)
+        return record(queryFactory
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> constructor() { // 생성자 (런타임에 맞는 생성자를 찾는다)
+        return record(queryFactory
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection() { // @QueryProjection (컴파일 시점에 생성된 QMemberDto)
+        return record(queryFactory
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<MemberDto> jpqlNew() { // JPQL new 명령어 (Hibernate가 생성자 호출)
+        return record(em.createQuery("select new koo.basicquerydsl.dto.MemberDto(m.username, m.age) from Member m", MemberDto.class)
+                .getResultList());
+    }
+
+    private List<MemberDto> record(List<MemberDto> result) {
+        allocation.addRows(result.size());
+        return result;
+    }
+
+}
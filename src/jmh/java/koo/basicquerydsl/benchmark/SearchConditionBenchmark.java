@@ -0,0 +1,85 @@
+package koo.basicquerydsl.benchmark;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import koo.basicquerydsl.repository.MemberQueryDslRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동적 쿼리 조립 방식 비교 (BooleanBuilder, where절 다중 파라미터, 미리 만든 JPQL + 파라미터 바인딩)
+ * - 결과 행이 적은 조건일수록 조건 조립/JPQL 렌더링 비용의 차이가 크게 보인다.
+ * - 실행: ./gradlew jmh -PjmhIncludes=SearchConditionBenchmark
+ * - 결과: ops/s, gc.alloc.rate.norm(연산 하나당 할당 바이트)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchConditionBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"username", "teamAge", "all"})
+    private String fields;
+
+    private BenchmarkDatabase database;
+    private MemberQueryDslRepository repository;
+    private MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(rows, 10);
+        repository = database.getBean(MemberQueryDslRepository.class); // 결과 캐시(member.search-cache)는 기본값 꺼짐
+        condition = condition(fields);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> booleanBuilder() {
+        return repository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> whereParameter() {
+        return repository.searchByWhereParameter(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> compiledQuery() {
+        return repository.searchByCompiledQuery(condition);
+    }
+
+    private static MemberSearchCondition condition(String fields) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        switch (fields) {
+            case "username": // 한 건
+                condition.setUsername("member42");
+                break;
+            case "teamAge": // 팀 하나의 10% 정도
+                condition.setTeamName("teamB");
+                condition.setAgeGoe(30);
+                condition.setAgeLoe(39);
+                break;
+            case "all":
+                condition.setUsername("member31");
+                condition.setTeamName("teamB");
+                condition.setAgeGoe(30);
+                condition.setAgeLoe(39);
+                break;
+            default:
+                throw new IllegalArgumentException("알 수 없는 조건입니다. fields=" + fields);
+        }
+        return condition;
+    }
+
+}
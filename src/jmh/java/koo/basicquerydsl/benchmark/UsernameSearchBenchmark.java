@@ -0,0 +1,99 @@
+package koo.basicquerydsl.benchmark;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import koo.basicquerydsl.dto.QMemberTeamDto;
+import koo.basicquerydsl.repository.MemberQueryDslRepository;
+import koo.basicquerydsl.repository.MemberSearchQueryBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static koo.basicquerydsl.entity.QMember.member;
+import static koo.basicquerydsl.entity.QTeam.team;
+
+/**
+ * username 대소문자 무시/접두사 검색: 컬럼에 함수를 씌운 조건(QuerydslIntermediateLevelTest의 sqlFunction2, sqlFunction3) vs 인덱스를 타는 조건
+ * - lower(username) = ?          vs username_lower = ? (usernameEq + ignoreCase)
+ * - username like 'x%'           vs username >= 'x' and username < 'y' (usernamePrefix)
+ * - lower(username) like 'x%'    vs username_lower 범위 (usernamePrefix + ignoreCase)
+ * - 회원 100만명 (member0 ~ member999999), 접두사 "member77777"은 11명
+ * - 실행: ./gradlew jmh -PjmhIncludes=UsernameSearchBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UsernameSearchBenchmark {
+
+    private static final String USERNAME = "MEMBER777777";
+    private static final String PREFIX = "member77777";
+
+    @Param({"1000000"})
+    private int rows;
+
+    private BenchmarkDatabase database;
+    private MemberQueryDslRepository repository;
+    private MemberSearchQueryBuilder queryBuilder;
+
+    private final MemberSearchCondition none = new MemberSearchCondition();
+    private final MemberSearchCondition usernameIgnoreCase = new MemberSearchCondition();
+    private final MemberSearchCondition usernamePrefix = new MemberSearchCondition();
+    private final MemberSearchCondition usernamePrefixIgnoreCase = new MemberSearchCondition();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(rows, 100);
+        repository = database.getBean(MemberQueryDslRepository.class);
+        queryBuilder = database.getBean(MemberSearchQueryBuilder.class);
+
+        usernameIgnoreCase.setUsername(USERNAME);
+        usernameIgnoreCase.setIgnoreCase(true);
+        usernamePrefix.setUsernamePrefix(PREFIX);
+        usernamePrefixIgnoreCase.setUsernamePrefix(PREFIX.toUpperCase());
+        usernamePrefixIgnoreCase.setIgnoreCase(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> lowerFunctionEq() { // where lower(username) = ? (전체 스캔)
+        return queryBuilder.select(memberTeamDto(), none, member.username.lower().eq(USERNAME.toLowerCase())).fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> lowerColumnEq() {
+        return repository.searchByWhereParameter(usernameIgnoreCase);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> likePrefix() { // where username like 'member77777%' escape '!'
+        return queryBuilder.select(memberTeamDto(), none, member.username.startsWith(PREFIX)).fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> rangePrefix() {
+        return repository.searchByWhereParameter(usernamePrefix);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> lowerFunctionLikePrefix() { // where lower(username) like 'member77777%' (전체 스캔)
+        return queryBuilder.select(memberTeamDto(), none, member.username.lower().startsWith(PREFIX)).fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> lowerColumnRangePrefix() {
+        return repository.searchByWhereParameter(usernamePrefixIgnoreCase);
+    }
+
+    private static QMemberTeamDto memberTeamDto() {
+        return new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name);
+    }
+
+}
@@ -0,0 +1,81 @@
+package koo.basicquerydsl.repository;
+
+import koo.basicquerydsl.repository.support.MemberSnapshot;
+import koo.basicquerydsl.repository.support.MemberState;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 읽기 모델 빠른 시작(MemberReadModel.loadWarm)에서 스냅샷 파일을 읽는 비용
+ * - mappedColumns: 매핑한 파일에서 나이 컬럼만 위치 계산으로 읽는다. (객체를 만들지 않는 읽기)
+ * - decodeRows: 모든 행을 MemberState로 읽는다.
+ * - loadWarm: decodeRows + 인덱스(TreeMap) 채우기, 시작할 때 실제로 하는 일 (Rows.of)
+ * - Rows가 패키지 전용이라 benchmark 패키지가 아닌 repository 패키지에 둔다. DB는 쓰지 않는다.
+ * - 실행: ./gradlew jmh -PjmhIncludes=MemberSnapshotLoadBenchmark -PjmhRows=100000,1000000
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class MemberSnapshotLoadBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<MemberState> members = new ArrayList<>(rows);
+        Map<Long, String> teams = new HashMap<>();
+        for (long t = 1; t <= 100; t++) {
+            teams.put(t, "team" + t);
+        }
+        for (int i = 0; i < rows; i++) {
+            members.add(new MemberState((long) i + 1, "member" + i, i % 100, (long) (i % 100) + 1));
+        }
+        file = Files.createTempFile("member-snapshot", ".bin");
+        MemberSnapshot.write(file, members, teams, MemberSnapshot.UNKNOWN_CHANGE_SEQ);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long mappedColumns() {
+        MemberSnapshot snapshot = MemberSnapshot.map(file);
+        long sum = 0;
+        for (int i = 0; i < snapshot.memberCount(); i++) {
+            sum += snapshot.age(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<MemberState> decodeRows() {
+        MemberSnapshot snapshot = MemberSnapshot.map(file);
+        List<MemberState> result = new ArrayList<>(snapshot.memberCount());
+        for (int i = 0; i < snapshot.memberCount(); i++) {
+            result.add(snapshot.member(i));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public MemberReadModel.Rows loadWarm() {
+        return MemberReadModel.Rows.of(MemberSnapshot.map(file));
+    }
+
+}
@@ -0,0 +1,43 @@
+package koo.basicquerydsl.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+public class CacheMetricsConfig {
+
+    /**
+     * 2차 캐시 리전별 hit ratio (hit / (hit + miss))
+     * - hit, miss 건수 자체는 actuator가 hibernate.second.level.cache.requests로 이미 노출한다.
+     */
+    @Bean
+    public MeterBinder secondLevelCacheHitRatio(EntityManagerFactory emf) {
+        return registry -> {
+            Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+            for (String region : statistics.getSecondLevelCacheRegionNames()) {
+                Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics, stats -> hitRatio(stats, region))
+                        .tag("region", region)
+                        .register(registry);
+            }
+        };
+    }
+
+    private static double hitRatio(Statistics statistics, String regionName) {
+        CacheRegionStatistics region;
+        try {
+            region = statistics.getDomainDataRegionStatistics(regionName);
+        } catch (IllegalArgumentException e) { // 엔티티/컬렉션 리전이 아닌 경우 (쿼리 캐시 등)
+            return Double.NaN;
+        }
+        long requests = region.getHitCount() + region.getMissCount();
+        return requests == 0 ? 0.0 : (double) region.getHitCount() / requests;
+    }
+
+}
@@ -0,0 +1,33 @@
+package koo.basicquerydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class HibernateConfig implements HibernatePropertiesCustomizer {
+
+    private final List<StatementInspector> statementInspectors;
+
+    public HibernateConfig(List<StatementInspector> statementInspectors) {
+        this.statementInspectors = new ArrayList<>(statementInspectors);
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        // Hibernate에는 StatementInspector를 하나만 등록할 수 있으므로 스프링 빈으로 등록된 것들을 순서대로 실행하도록 묶는다.
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+            String inspected = sql;
+            for (StatementInspector inspector : statementInspectors) {
+                inspected = inspector.inspect(inspected);
+            }
+            return inspected;
+        });
+    }
+
+}
@@ -0,0 +1,45 @@
+package koo.basicquerydsl.config;
+
+import koo.basicquerydsl.repository.support.CommittedEntityChangeListener;
+import koo.basicquerydsl.repository.support.EntityChangeEventListener;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+public class HibernateEventConfig { // 스프링 빈으로 만든 Hibernate 이벤트 리스너를 SessionFactory에 등록한다.
+
+    private final EntityManagerFactory emf;
+    private final EntityChangeEventListener entityChangeEventListener;
+    private final CommittedEntityChangeListener committedEntityChangeListener;
+
+    public HibernateEventConfig(EntityManagerFactory emf, EntityChangeEventListener entityChangeEventListener,
+                                CommittedEntityChangeListener committedEntityChangeListener) {
+        this.emf = emf;
+        this.entityChangeEventListener = entityChangeEventListener;
+        this.committedEntityChangeListener = committedEntityChangeListener;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.PRE_INSERT, entityChangeEventListener);
+        registry.appendListeners(EventType.PRE_UPDATE, entityChangeEventListener);
+        registry.appendListeners(EventType.PRE_DELETE, entityChangeEventListener);
+        registry.appendListeners(EventType.POST_INSERT, entityChangeEventListener);
+        registry.appendListeners(EventType.POST_UPDATE, entityChangeEventListener);
+        registry.appendListeners(EventType.POST_DELETE, entityChangeEventListener);
+
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, committedEntityChangeListener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, committedEntityChangeListener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, committedEntityChangeListener);
+    }
+
+}
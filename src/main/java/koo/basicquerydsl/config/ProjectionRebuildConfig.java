@@ -0,0 +1,18 @@
+package koo.basicquerydsl.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+public class ProjectionRebuildConfig { // 메모리 구조(TeamAgeStatistics, MemberReadModel)를 DB에서 다시 만드는 스레드 (주기적인 재구성, 벌크 연산 후 재구성)
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskScheduler projectionRebuildScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler(); // 재구성은 가끔이므로 pool size 1 (구조마다 한 번에 하나씩만 실행된다.)
+        scheduler.setThreadNamePrefix("projection-rebuild-");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+}
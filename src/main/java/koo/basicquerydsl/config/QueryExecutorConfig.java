@@ -0,0 +1,50 @@
+package koo.basicquerydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class QueryExecutorConfig {
+
+    /**
+     * content 쿼리와 count 쿼리를 동시에 실행하기 위한 스레드 풀
+     * - 작업 하나가 커넥션 하나를 쓰므로 pool-size는 커넥션 풀 크기(hikari 기본 10)보다 충분히 작게 잡는다.
+     * - 큐가 가득 차면 바로 거절한다. (TaskRejectedException, 503 응답)
+     *   요청 스레드에서 실행하면(CallerRunsPolicy) count 쿼리를 요청 스레드가 끝까지 실행한 뒤에야 content 쿼리를 넣으므로 병렬의 의미가 없고, 밀린 만큼 톰캣 스레드까지 막힌다.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor searchQueryExecutor(@Value("${member.search.parallel.pool-size:4}") int poolSize,
+                                                      @Value("${member.search.parallel.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("search-query-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * /v1 ~ /v3 비동기 검색(/async)을 실행하는 스레드 풀
+     * - 스레드마다 커넥션을 하나씩 쓰므로 커넥션 풀 크기보다 많은 스레드는 커넥션을 기다리기만 한다. 그래서 기본값을 커넥션 풀 크기에 맞춘다.
+     * - 큐가 가득 차면 요청 스레드에서 실행하지 않고 바로 거절한다. (요청 스레드가 막히지 않게, 503 응답)
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor asyncSearchExecutor(@Value("${member.search.async.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+                                                      @Value("${member.search.async.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("async-search-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+}
@@ -0,0 +1,82 @@
+package koo.basicquerydsl.controller;
+
+import koo.basicquerydsl.repository.support.ReadOnlyQueryExecutor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * 검색을 요청 스레드(Tomcat)가 아닌 asyncSearchExecutor에서 실행하고 DeferredResult로 응답한다.
+ * - 엔드포인트별로 동시에 받을 수 있는 검색 수(실행 중 + 대기)를 제한한다. 느린 엔드포인트 하나가 스레드 풀 큐를 다 차지하지 못하게 한다.
+ *   (member.search.async.queue-limit.엔드포인트, 기본 queue-limit.default)
+ * - 제한 시간(timeout-ms)이 지나면 503으로 응답하고 실행 중인 DB 쿼리도 취소한다. (Session.cancelQuery)
+ * - 한도는 작업 스레드가 정말로 끝날 때 반납한다. 제한 시간이 지나 응답한 뒤에도 작업이 결과 변환 등으로 스레드를 잡고 있으면 그동안은 한도에 포함된다.
+ */
+@Component
+public class AsyncSearchDispatcher {
+
+    private final ThreadPoolTaskExecutor asyncSearchExecutor;
+    private final ReadOnlyQueryExecutor readOnlyQueryExecutor;
+    private final Environment environment;
+    private final long timeoutMillis;
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    public AsyncSearchDispatcher(@Qualifier("asyncSearchExecutor") ThreadPoolTaskExecutor asyncSearchExecutor,
+                                 ReadOnlyQueryExecutor readOnlyQueryExecutor,
+                                 Environment environment,
+                                 @Value("${member.search.async.timeout-ms:3000}") long timeoutMillis) {
+        this.asyncSearchExecutor = asyncSearchExecutor;
+        this.readOnlyQueryExecutor = readOnlyQueryExecutor;
+        this.environment = environment;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public <T> DeferredResult<T> dispatch(String endpoint, Supplier<T> query) {
+        Semaphore endpointPermits = permits(endpoint);
+        if (!endpointPermits.tryAcquire()) {
+            throw new AsyncSearchRejectedException(endpoint + " 검색 요청이 너무 많습니다. 잠시 후 다시 시도해 주세요.");
+        }
+
+        ReadOnlyQueryExecutor.QueryTask<T> task;
+        try {
+            task = readOnlyQueryExecutor.submit(asyncSearchExecutor, query, endpointPermits::release); // 작업 스레드가 정말 끝났을 때 반납
+        } catch (TaskRejectedException e) {
+            endpointPermits.release();
+            throw new AsyncSearchRejectedException("검색 대기열이 가득 찼습니다. 잠시 후 다시 시도해 주세요.");
+        }
+
+        DeferredResult<T> result = new DeferredResult<>(timeoutMillis);
+        result.onTimeout(() -> {
+            task.cancel();
+            result.setErrorResult(new AsyncSearchRejectedException(endpoint + " 검색이 " + timeoutMillis + "ms 안에 끝나지 않아 취소했습니다."));
+        });
+        task.completable().whenComplete((rows, error) -> { // 제한 시간 초과로 취소되면 작업이 아직 돌고 있어도 바로 완료되므로 여기서 반납하지 않는다.
+            if (error == null) {
+                result.setResult(rows);
+            } else {
+                result.setErrorResult(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        });
+        return result;
+    }
+
+    int availablePermits(String endpoint) {
+        return permits(endpoint).availablePermits();
+    }
+
+    private Semaphore permits(String endpoint) {
+        return permits.computeIfAbsent(endpoint, key -> new Semaphore(environment.getProperty("member.search.async.queue-limit." + key,
+                Integer.class, environment.getProperty("member.search.async.queue-limit.default", Integer.class, 50))));
+    }
+
+}
@@ -0,0 +1,12 @@
+package koo.basicquerydsl.controller;
+
+/**
+ * 비동기 검색을 받지 않았거나(엔드포인트별 대기 한도, 스레드 풀 큐 초과) 제한 시간 안에 끝내지 못했을 때 (503)
+ */
+public class AsyncSearchRejectedException extends RuntimeException {
+
+    public AsyncSearchRejectedException(String message) {
+        super(message);
+    }
+
+}
@@ -1,15 +1,12 @@
 package koo.basicquerydsl.controller;
 
-import koo.basicquerydsl.entity.Member;
-import koo.basicquerydsl.entity.Team;
+import koo.basicquerydsl.service.MemberSeedLoader;
+import koo.basicquerydsl.service.MemberSeedSpec;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 
 @Profile("local") // 샘플 데이터 추가가 테스트 케이스에 영향을 미치지 않게 하기 위해 추가 (application.yml도 추가)
 @Component
@@ -26,21 +23,14 @@ public class InitMember {
     @Component
     static class InitMemberService {
 
-        @PersistenceContext
-        private EntityManager em;
+        private final MemberSeedLoader memberSeedLoader;
 
-        @Transactional
-        public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-
-            em.persist(teamA);
-            em.persist(teamB);
+        InitMemberService(MemberSeedLoader memberSeedLoader) {
+            this.memberSeedLoader = memberSeedLoader;
+        }
 
-            for (int i = 0; i < 100; i++) { // 100명의 회원중 절반은 teamA, 나머지는 teamB에 소속되게 하기
-                Team selectedTeam = (i % 2 == 0) ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
-            }
+        public void init() { // 100명의 회원중 절반은 teamA, 나머지는 teamB에 소속되게 하기
+            memberSeedLoader.load(new MemberSeedSpec(100, 2, MemberSeedSpec.TeamDistribution.ROUND_ROBIN, 100, 1));
         }
 
     }
@@ -1,39 +1,188 @@
 package koo.basicquerydsl.controller;
 
+import koo.basicquerydsl.dto.MemberCursorPage;
+import koo.basicquerydsl.dto.MemberFullTextPage;
 import koo.basicquerydsl.dto.MemberSearchCondition;
 import koo.basicquerydsl.dto.MemberTeamDto;
+import koo.basicquerydsl.repository.InvalidSearchRequestException;
+import koo.basicquerydsl.repository.MemberCursor;
+import koo.basicquerydsl.repository.MemberFullTextRepository;
 import koo.basicquerydsl.repository.MemberQueryDslRepository;
+import koo.basicquerydsl.repository.MemberReadModel;
 import koo.basicquerydsl.repository.MemberSprinDataJpaRepository;
+import koo.basicquerydsl.service.MemberExportService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+    private static final String FULL_TEXT_TRUNCATED_HEADER = "X-Full-Text-Truncated";
+
     private final MemberQueryDslRepository memberQueryDslRepository;
     private final MemberSprinDataJpaRepository memberSprinDataJpaRepository;
+    private final MemberExportService memberExportService;
+    private final AsyncSearchDispatcher asyncSearchDispatcher;
+    private final ObjectProvider<MemberReadModel> memberReadModel; // member.read-model.enabled: true 일 때만 있다.
+    private final ObjectProvider<MemberFullTextRepository> memberFullTextRepository; // member.full-text.enabled: true 일 때만 있다.
+    private final MemberSearchETag memberSearchETag;
 
     @GetMapping("/v1/members") // 동적 쿼리 검색 (queryDSL)
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) { // /v1/members 요청시 모든 회원이 나오고 /v1/members?teamName=teamB 로 요청시 teamB의 회원만 나온다.
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, // /v1/members 요청시 모든 회원이 나오고 /v1/members?teamName=teamB 로 요청시 teamB의 회원만 나온다.
+                                              @RequestParam(required = false) String q, // q가 있으면 회원명, 팀명 전문 검색 (점수 순)
+                                              WebRequest request, HttpServletResponse response) {
+        MemberReadModel readModel = memberReadModel.getIfAvailable();
+        boolean staleReadModel = readModel != null && readModel.getConsistency() == MemberReadModel.Consistency.EVENTUAL && readModel.isStale();
+        if (!staleReadModel && notModified(condition, request)) { // 재구성 중인 EVENTUAL 읽기 모델은 버전이 오른 뒤에도 이전 데이터를 돌려주므로 ETag를 붙이지 않는다.
+            return null;
+        }
+        if (StringUtils.hasText(q)) {
+            return fullTextSearch(q, condition, Pageable.unpaged(), response).getContent();
+        }
+        if (readModel != null) { // 메모리 읽기 모델에서 검색할 수 있으면 DB에 가지 않는다. (트랜잭션, 커넥션도 잡지 않는다.)
+            Optional<List<MemberTeamDto>> rows = readModel.search(condition);
+            if (rows.isPresent()) {
+                return rows.get();
+            }
+        }
         return memberQueryDslRepository.searchByWhereParameter(condition);
     }
 
+    @GetMapping("/v1/members/export") // /v1/members와 같은 검색이지만 전체 결과를 모으지 않고 한 줄씩 바로 내려준다. (NDJSON)
+    public void exportMemberV1(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.exportNdjson(condition, response.getOutputStream());
+    }
+
     // /v2/members?page=0&size=5 형태로 요청하기
     @GetMapping("/v2/members") // Spring Data Jpa의 페이징을 활용하면서(페이징 구현) 동적 쿼리 검색 (queryDSL)
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(required = false) String q, WebRequest request, HttpServletResponse response) {
+        if (notModified(condition, request)) {
+            return null;
+        }
+        if (StringUtils.hasText(q)) {
+            return fullTextSearch(q, condition, pageable, response);
+        }
         return memberSprinDataJpaRepository.searchPageSimple(condition, pageable);
     }
 
     // /v3/members?page=0&size=5 형태로 요청하기
     @GetMapping("/v3/members") // Spring Data Jpa의 페이징을 활용하면서(페이징 구현) 동적 쿼리 검색 (queryDSL)
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
+    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                              @RequestParam(defaultValue = "false") boolean parallel, // parallel=true 이면 content와 totalCount 쿼리를 동시에 실행
+                                              @RequestParam(required = false) String q, WebRequest request, HttpServletResponse response) {
+        if (notModified(condition, request)) {
+            return null;
+        }
+        if (StringUtils.hasText(q)) {
+            return fullTextSearch(q, condition, pageable, response);
+        }
+        if (parallel) {
+            return memberSprinDataJpaRepository.searchPageComplexParallel(condition, pageable);
+        }
         return memberSprinDataJpaRepository.searchPageComplex(condition, pageable);
     }
 
+    /**
+     * /v1 ~ /v3의 비동기 버전, 검색은 asyncSearchExecutor에서 실행되고 요청 스레드는 바로 반납된다.
+     * - 엔드포인트별 대기 한도를 넘거나 제한 시간 안에 끝나지 않으면 503 (AsyncSearchDispatcher)
+     */
+    @GetMapping("/v1/members/async")
+    public DeferredResult<List<MemberTeamDto>> searchMemberV1Async(MemberSearchCondition condition) {
+        return asyncSearchDispatcher.dispatch("v1", () -> memberQueryDslRepository.searchByWhereParameter(condition));
+    }
+
+    @GetMapping("/v2/members/async")
+    public DeferredResult<Page<MemberTeamDto>> searchMemberV2Async(MemberSearchCondition condition, Pageable pageable) {
+        return asyncSearchDispatcher.dispatch("v2", () -> memberSprinDataJpaRepository.searchPageSimple(condition, pageable));
+    }
+
+    @GetMapping("/v3/members/async") // content, count 쿼리를 한 스레드에서 차례로 실행한다. (parallel은 커넥션을 2개 더 쓰므로 지원하지 않음)
+    public DeferredResult<Page<MemberTeamDto>> searchMemberV3Async(MemberSearchCondition condition, Pageable pageable) {
+        return asyncSearchDispatcher.dispatch("v3", () -> memberSprinDataJpaRepository.searchPageComplex(condition, pageable));
+    }
+
+    // /v5/members?page=0&size=5 형태로 요청하기
+    @GetMapping("/v5/members") // 무한 스크롤용, totalCount 쿼리 없이 다음 페이지 존재 여부(hasNext)만 응답
+    public Slice<MemberTeamDto> searchMemberV5(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        if (notModified(condition, request)) {
+            return null;
+        }
+        return memberSprinDataJpaRepository.searchSlice(condition, pageable);
+    }
+
+    // /v4/members?size=20&sort=AGE 로 첫 페이지를 요청하고, 이후에는 응답의 nextCursor를 cursor 파라미터로 넘기기
+    @GetMapping("/v4/members") // offset 대신 커서(keyset)로 페이징, 페이지가 깊어져도 응답 속도가 일정하다.
+    public MemberCursorPage searchMemberV4(MemberSearchCondition condition,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int size,
+                                           @RequestParam(defaultValue = "ID") MemberCursor.SortKey sort,
+                                           WebRequest request) {
+        if (notModified(condition, request)) {
+            return null;
+        }
+        return memberSprinDataJpaRepository.searchByCursor(condition, sort, cursor, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    }
+
+    /**
+     * 데이터 버전으로 만든 ETag를 응답 헤더에 붙이고, If-None-Match와 같으면 true (304, 쿼리를 실행하지 않는다.)
+     * - 버전은 조회 전에 읽는다. 조회 중에 커밋된 변경이 있으면 다음 요청의 ETag가 달라진다.
+     */
+    private boolean notModified(MemberSearchCondition condition, WebRequest request) {
+        return request.checkNotModified(memberSearchETag.of(condition));
+    }
+
+    private MemberFullTextPage fullTextSearch(String q, MemberSearchCondition condition, Pageable pageable, HttpServletResponse response) {
+        MemberFullTextRepository repository = memberFullTextRepository.getIfAvailable();
+        if (repository == null) {
+            throw new InvalidSearchRequestException("전문 검색(q)을 지원하지 않습니다.");
+        }
+        MemberFullTextPage page = repository.search(q, condition, pageable);
+        if (page.isTruncated()) { // 색인에서 찾는 개수 한도에 걸려 결과와 totalElements가 일부일 수 있다. (/v1은 본문이 목록이라 헤더로만 알린다.)
+            response.setHeader(FULL_TEXT_TRUNCATED_HEADER, "true");
+        }
+        return page;
+    }
+
+    @ExceptionHandler(InvalidSearchRequestException.class) // 잘못된 cursor, size, usernamePrefix, q 요청만 400으로 응답 (다른 IllegalArgumentException은 내부 오류)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badRequest(InvalidSearchRequestException e) {
+        return e.getMessage();
+    }
+
+    @ExceptionHandler(AsyncSearchRejectedException.class) // 비동기 검색 대기 한도 초과, 제한 시간 초과
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String serviceUnavailable(AsyncSearchRejectedException e) {
+        return e.getMessage();
+    }
+
+    @ExceptionHandler(TaskRejectedException.class) // parallel=true 검색의 스레드 풀(searchQueryExecutor)이 가득 참
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String searchQueryRejected(TaskRejectedException e) {
+        return "검색 요청이 너무 많습니다. 잠시 후 다시 시도해 주세요.";
+    }
+
 }
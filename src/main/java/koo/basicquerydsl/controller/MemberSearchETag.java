@@ -0,0 +1,35 @@
+package koo.basicquerydsl.controller;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.repository.support.DataChangeTracker;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 회원 검색 응답의 ETag를 데이터 버전(DataChangeTracker)으로 만든다. 본문을 만들거나 해시하지 않으므로 If-None-Match가 맞으면 쿼리 없이 304로 끝난다.
+ * - teamName 조건이 있으면 그 팀의 버전, 없으면 member, team 테이블 버전을 쓴다. (다른 팀의 변경으로 팀별 대시보드의 캐시가 깨지지 않게)
+ * - 버전은 쓰기 시점과 트랜잭션이 끝날 때 모두 오르므로, 조회 전에 읽은 버전은 그 사이에 커밋된 변경이 있으면 다음 요청의 버전과 달라진다.
+ * - 버전은 메모리에만 있어 재시작하면 0부터 다시 시작하므로 인스턴스마다 다른 값을 앞에 붙인다. (여러 인스턴스 뒤에서도 서로 304를 주지 않는다.)
+ * - 약한(W/) ETag: 같은 데이터를 gzip 압축 여부와 상관없이 같은 것으로 본다. (Tomcat은 강한 ETag가 붙은 응답은 압축하지 않는다.)
+ */
+@Component
+public class MemberSearchETag {
+
+    private final DataChangeTracker dataChangeTracker;
+    private final String instance = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    public MemberSearchETag(DataChangeTracker dataChangeTracker) {
+        this.dataChangeTracker = dataChangeTracker;
+    }
+
+    public String of(MemberSearchCondition condition) {
+        String teamName = condition.getTeamName();
+        if (StringUtils.hasText(teamName)) {
+            return "W/\"" + instance + "-t" + dataChangeTracker.teamVersion(teamName) + "\"";
+        }
+        return "W/\"" + instance + "-" + dataChangeTracker.version(DataChangeTracker.MEMBER, DataChangeTracker.TEAM) + "\"";
+    }
+
+}
@@ -0,0 +1,43 @@
+package koo.basicquerydsl.controller;
+
+import koo.basicquerydsl.service.MemberSeedLoader;
+import koo.basicquerydsl.service.MemberSeedSpec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * 부하 테스트용 대량 샘플 데이터 추가 (--spring.profiles.active=seed --seed.members=1000000 형태로 실행)
+ * - 건수, 팀 수, 팀 배정 방식 등은 application-seed.yml 참고
+ */
+@Profile("seed")
+@Component
+@RequiredArgsConstructor
+public class SeedMember implements ApplicationRunner {
+
+    private final MemberSeedLoader memberSeedLoader;
+
+    @Value("${seed.members}")
+    private long members;
+
+    @Value("${seed.teams}")
+    private int teams;
+
+    @Value("${seed.distribution}")
+    private MemberSeedSpec.TeamDistribution distribution;
+
+    @Value("${seed.chunk-size}")
+    private int chunkSize;
+
+    @Value("${seed.threads}")
+    private int threads;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        memberSeedLoader.load(new MemberSeedSpec(members, teams, distribution, chunkSize, threads));
+    }
+
+}
@@ -0,0 +1,76 @@
+package koo.basicquerydsl.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import koo.basicquerydsl.repository.support.DataChangeTracker;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 읽기 전용 트랜잭션을 복제본으로 보내는 DataSource (datasource.replica.url이 있을 때만)
+ * - 원본은 spring.datasource, 복제본은 datasource.replica (url, username, password, hikari.*) 설정으로 각각 커넥션 풀을 만든다.
+ * - Hibernate의 DDL(ddl-auto)과 트랜잭션 밖의 조회는 원본에서 실행된다.
+ * - 복제 지연이나 쓰기 직후에는 원본을 읽는다. (ReplicaLagGuard)
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(Environment environment) { // DataSourceProperties를 빈으로 하나 더 만들면 spring.datasource 쪽 주입이 모호해지므로 직접 바인딩한다.
+        DataSourceProperties replica = Binder.get(environment).bind("datasource.replica", DataSourceProperties.class).get();
+        return replica.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaLagGuard replicaLagGuard(DataChangeTracker dataChangeTracker,
+                                           @Value("${datasource.replica.max-lag-ms:1000}") long maxLagMillis,
+                                           @Value("${datasource.replica.read-after-write-ms:1000}") long readAfterWriteMillis) {
+        ReplicaLagGuard guard = new ReplicaLagGuard(Duration.ofMillis(maxLagMillis), Duration.ofMillis(readAfterWriteMillis));
+        dataChangeTracker.addChangeListener(tables -> guard.onWriteCompleted());
+        return guard;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "datasource.replica", name = "lag-query")
+    public ThreadPoolTaskScheduler replicaLagScheduler(ReplicaLagGuard replicaLagGuard,
+                                                       @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                                       @Value("${datasource.replica.lag-query}") String lagQuery,
+                                                       @Value("${datasource.replica.lag-check-interval-ms:5000}") long intervalMillis) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("replica-lag-");
+        scheduler.initialize();
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        scheduler.scheduleWithFixedDelay(() -> replicaLagGuard.checkLag(replica, lagQuery), intervalMillis);
+        return scheduler;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaLagGuard replicaLagGuard) {
+        return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagGuard));
+    }
+
+}
@@ -0,0 +1,47 @@
+package koo.basicquerydsl.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Transactional(readOnly = true)는 복제본, 나머지(쓰기, 트랜잭션 밖)는 원본 커넥션을 준다.
+ * - 트랜잭션의 readOnly 표시는 커넥션을 얻은 뒤에 설정되므로 LazyConnectionDataSourceProxy로 감싸서 첫 SQL을 실행할 때 고르게 한다.
+ * - 캐시를 채우는 조회(ReplicaReads.onPrimary)는 원본, 복제본을 준 트랜잭션은 ReplicaReads에 표시한다.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaLagGuard replicaLagGuard;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagGuard replicaLagGuard) {
+        this.replicaLagGuard = replicaLagGuard;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primary);
+        targets.put(Target.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (ReplicaReads.isPrimaryRequired()) {
+            return Target.PRIMARY;
+        }
+        boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (readOnly && replicaLagGuard.isReplicaUsable()) {
+            ReplicaReads.markCurrentTransaction();
+            return Target.REPLICA;
+        }
+        return Target.PRIMARY;
+    }
+
+}
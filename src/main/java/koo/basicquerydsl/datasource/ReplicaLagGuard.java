@@ -0,0 +1,54 @@
+package koo.basicquerydsl.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * 복제본을 읽어도 되는지 판단한다. (안 되면 읽기 전용 트랜잭션도 원본으로 보낸다.)
+ * - 복제 지연: lag-query로 잰 지연이 max-lag를 넘거나 lag-query가 실패하면 복제본을 쓰지 않는다.
+ * - 쓰기 직후: 어느 스레드든 쓰기 트랜잭션이 끝나고 read-after-write 동안은 복제본에 아직 반영되지 않았을 수 있으므로 원본을 읽는다.
+ *   (요청별이 아니라 애플리케이션 전체 기준이라 쓰기가 잦으면 복제본을 거의 쓰지 않게 된다.)
+ */
+@Slf4j
+public class ReplicaLagGuard {
+
+    private final Duration maxLag;
+    private final Duration readAfterWrite;
+
+    private volatile long lastWriteNanos = System.nanoTime() - Long.MAX_VALUE / 2; // 아직 쓰기 없음
+    private volatile boolean lagging;
+
+    public ReplicaLagGuard(Duration maxLag, Duration readAfterWrite) {
+        this.maxLag = maxLag;
+        this.readAfterWrite = readAfterWrite;
+    }
+
+    public boolean isReplicaUsable() {
+        return !lagging && System.nanoTime() - lastWriteNanos >= readAfterWrite.toNanos();
+    }
+
+    public void onWriteCompleted() {
+        lastWriteNanos = System.nanoTime();
+    }
+
+    void checkLag(JdbcTemplate replica, String lagQuery) { // lagQuery: 복제 지연을 밀리초로 돌려주는 쿼리 (DB마다 다르다.)
+        try {
+            Long lagMillis = replica.queryForObject(lagQuery, Long.class);
+            recordLag(lagMillis != null ? Duration.ofMillis(lagMillis) : null);
+        } catch (RuntimeException e) {
+            log.warn("복제 지연 확인 실패, 복제본을 쓰지 않습니다. {}", e.toString());
+            recordLag(null);
+        }
+    }
+
+    void recordLag(Duration lag) { // null = 알 수 없음
+        boolean nowLagging = lag == null || lag.compareTo(maxLag) > 0;
+        if (nowLagging != lagging) {
+            log.warn(nowLagging ? "복제 지연 {} (최대 {}), 읽기를 원본으로 보냅니다." : "복제 지연 {} (최대 {}), 읽기를 다시 복제본으로 보냅니다.", lag, maxLag);
+        }
+        lagging = nowLagging;
+    }
+
+}
@@ -0,0 +1,93 @@
+package koo.basicquerydsl.datasource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 버전으로 무효화되는 캐시(VersionedLruCache, 2차 캐시)를 복제본에서 읽은 값으로 채우지 않게 한다.
+ * - 캐시는 지금 원본의 데이터 버전(DataChangeTracker)으로 값을 저장하는데, 복제본은 원본보다 늦을 수 있어서 이전 값이 새 버전으로 TTL까지 남는다.
+ * - onPrimary 안에서 얻는 커넥션은 읽기 전용 트랜잭션이어도 원본이다. (캐시를 채우는 조회)
+ * - 복제본 커넥션을 얻은 트랜잭션은 표시해 두고(isCurrentTransactionOnReplica), 그 트랜잭션의 Hibernate 세션은 2차 캐시를 읽기만 한다. (CacheMode.GET)
+ * - 복제본 라우팅(ReadReplicaConfig)을 쓰지 않으면 아무 것도 하지 않는다.
+ */
+public final class ReplicaReads {
+
+    private static final Object REPLICA_TRANSACTION = new Object(); // 트랜잭션 리소스 키
+    private static final ThreadLocal<int[]> primaryDepth = ThreadLocal.withInitial(() -> new int[1]);
+
+    private ReplicaReads() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> read) {
+        int[] depth = primaryDepth.get();
+        depth[0]++;
+        try {
+            return read.get();
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    public static boolean isPrimaryRequired() {
+        return primaryDepth.get()[0] > 0;
+    }
+
+    public static boolean isCurrentTransactionOnReplica() { // 이미 복제본 커넥션을 쓰고 있어서 onPrimary로도 원본을 읽을 수 없다.
+        return TransactionSynchronizationManager.getResource(REPLICA_TRANSACTION) != null;
+    }
+
+    static void markCurrentTransaction() { // ReadReplicaRoutingDataSource가 복제본 커넥션을 줄 때 (트랜잭션마다 한 번)
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || isCurrentTransactionOnReplica()) {
+            return;
+        }
+
+        Map<Session, CacheMode> sessions = new IdentityHashMap<>();
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder) {
+                Session session = ((EntityManagerHolder) resource).getEntityManager().unwrap(Session.class);
+                sessions.put(session, session.getCacheMode());
+                session.setCacheMode(CacheMode.GET);
+            }
+        }
+        TransactionSynchronizationManager.bindResource(REPLICA_TRANSACTION, sessions);
+        TransactionSynchronizationManager.registerSynchronization(new ReplicaTransactionSynchronization(sessions));
+    }
+
+    private static class ReplicaTransactionSynchronization extends TransactionSynchronizationAdapter {
+
+        private final Map<Session, CacheMode> sessions; // 세션 -> 원래 CacheMode
+
+        ReplicaTransactionSynchronization(Map<Session, CacheMode> sessions) {
+            this.sessions = sessions;
+        }
+
+        @Override
+        public void suspend() { // REQUIRES_NEW로 시작한 트랜잭션은 따로 커넥션을 얻는다.
+            TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_TRANSACTION);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(REPLICA_TRANSACTION, sessions);
+        }
+
+        @Override
+        public void afterCompletion(int status) { // OSIV로 세션이 트랜잭션보다 오래 살아도 다음 트랜잭션은 2차 캐시에 넣는다.
+            TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_TRANSACTION);
+            sessions.forEach((session, cacheMode) -> {
+                if (session.isOpen()) {
+                    session.setCacheMode(cacheMode);
+                }
+            });
+        }
+
+    }
+
+}
@@ -0,0 +1,144 @@
+package koo.basicquerydsl.dto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 회원 검색 결과를 행(MemberTeamDto) 대신 열(기본형 배열)로 담는다. (분석용 대량 조회)
+ * - i번째 회원 = memberIds[i], ages[i], teamIds[i], teamNames[teamNameCodes[i]]
+ * - 팀 이름은 팀마다 한 번만 담고(사전), 회원은 사전의 번호만 가진다. 사전에는 결과에 나온 팀만 처음 나온 순서로 들어간다.
+ * - 팀이 없는 회원은 teamIds[i] = NO_TEAM, teamNameCodes[i] = NO_TEAM
+ * - 배열은 size보다 길 수 있다. (0 ~ size - 1만 유효, 복사하지 않으려고 그대로 둔다.)
+ */
+public class MemberColumns {
+
+    public static final int NO_TEAM = -1;
+
+    private final int size;
+    private final long[] memberIds;
+    private final int[] ages;
+    private final long[] teamIds;
+    private final int[] teamNameCodes;
+    private final String[] teamNames;
+
+    private MemberColumns(Builder builder) {
+        this.size = builder.size;
+        this.memberIds = builder.memberIds;
+        this.ages = builder.ages;
+        this.teamIds = builder.teamIds;
+        this.teamNameCodes = builder.teamNameCodes;
+        this.teamNames = builder.teamNames.toArray(new String[0]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long[] getMemberIds() {
+        return memberIds;
+    }
+
+    public int[] getAges() {
+        return ages;
+    }
+
+    public long[] getTeamIds() {
+        return teamIds;
+    }
+
+    public int[] getTeamNameCodes() {
+        return teamNameCodes;
+    }
+
+    public String[] getTeamNames() { // 사전 (팀 이름 번호 -> 팀 이름)
+        return teamNames;
+    }
+
+    public String teamName(int index) {
+        int code = teamNameCodes[index];
+        return code == NO_TEAM ? null : teamNames[code];
+    }
+
+    public MemberTeamDto row(int index) { // 확인용, 한 행을 MemberTeamDto로
+        long teamId = teamIds[index];
+        return new MemberTeamDto(memberIds[index], null, ages[index], teamId == NO_TEAM ? null : teamId, teamName(index));
+    }
+
+    public static class Builder {
+
+        private int size;
+        private long[] memberIds;
+        private int[] ages;
+        private long[] teamIds;
+        private int[] teamNameCodes;
+        private final List<String> teamNames = new ArrayList<>(); // 사전 번호 = 등록 순서
+        private long[] dictionaryTeamIds = new long[16];           // 등록된 팀 id (오름차순, 이진 탐색으로 사전 번호를 찾는다.)
+        private int[] dictionaryCodes = new int[16];               // dictionaryTeamIds[i]의 사전 번호
+
+        public Builder(int initialCapacity) {
+            int capacity = Math.max(initialCapacity, 16);
+            memberIds = new long[capacity];
+            ages = new int[capacity];
+            teamIds = new long[capacity];
+            teamNameCodes = new int[capacity];
+        }
+
+        public boolean hasTeam(long teamId) {
+            return Arrays.binarySearch(dictionaryTeamIds, 0, teamNames.size(), teamId) >= 0;
+        }
+
+        public Builder team(long teamId, String name) { // 사전에 팀 이름 등록 (그 팀의 회원을 add 하기 전에, 순서 상관없음)
+            int count = teamNames.size();
+            int position = Arrays.binarySearch(dictionaryTeamIds, 0, count, teamId);
+            if (position >= 0) {
+                throw new IllegalArgumentException("이미 사전에 있는 팀입니다. teamId=" + teamId);
+            }
+            position = -position - 1;
+            if (count == dictionaryTeamIds.length) {
+                dictionaryTeamIds = Arrays.copyOf(dictionaryTeamIds, count * 2);
+                dictionaryCodes = Arrays.copyOf(dictionaryCodes, count * 2);
+            }
+            System.arraycopy(dictionaryTeamIds, position, dictionaryTeamIds, position + 1, count - position); // 팀 수만큼만 옮기므로 새 팀이 나올 때만 든다.
+            System.arraycopy(dictionaryCodes, position, dictionaryCodes, position + 1, count - position);
+            dictionaryTeamIds[position] = teamId;
+            dictionaryCodes[position] = count;
+            teamNames.add(name);
+            return this;
+        }
+
+        public Builder add(long memberId, int age, long teamId) { // teamId가 NO_TEAM이면 팀 없음
+            if (size == memberIds.length) {
+                grow();
+            }
+            memberIds[size] = memberId;
+            ages[size] = age;
+            teamIds[size] = teamId;
+            teamNameCodes[size] = teamId == NO_TEAM ? NO_TEAM : teamNameCode(teamId);
+            size++;
+            return this;
+        }
+
+        private int teamNameCode(long teamId) { // Map<Long, Integer>를 쓰면 행마다 Long 박싱이 생기므로 기본형 배열에서 찾는다.
+            int position = Arrays.binarySearch(dictionaryTeamIds, 0, teamNames.size(), teamId);
+            if (position < 0) {
+                throw new IllegalStateException("사전에 없는 팀입니다. teamId=" + teamId);
+            }
+            return dictionaryCodes[position];
+        }
+
+        private void grow() {
+            int capacity = memberIds.length * 2;
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teamIds = Arrays.copyOf(teamIds, capacity);
+            teamNameCodes = Arrays.copyOf(teamNameCodes, capacity);
+        }
+
+        public MemberColumns build() {
+            return new MemberColumns(this);
+        }
+
+    }
+
+}
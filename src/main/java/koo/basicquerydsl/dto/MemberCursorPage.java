@@ -0,0 +1,23 @@
+package koo.basicquerydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.List;
+
+@Getter
+@ToString
+public class MemberCursorPage { // 커서(keyset) 기반 페이징 결과, nextCursor를 다음 요청의 cursor 파라미터로 그대로 넘기면 된다.
+
+    private final List<MemberTeamDto> content;
+    private final String nextCursor; // 다음 페이지가 없으면 null
+    private final boolean hasNext;
+
+    public MemberCursorPage(List<MemberTeamDto> content, String nextCursor) {
+        this.content = Collections.unmodifiableList(content);
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+
+}
@@ -0,0 +1,23 @@
+package koo.basicquerydsl.dto;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+/**
+ * 전문 검색(q) 결과 페이지
+ * - truncated: 검색어 단어 하나가 색인에서 최대 개수(member.full-text.max-hits)만큼 찾아서 더 있을 수 있다. content, totalElements는 찾은 범위 안에서만 맞다.
+ */
+public class MemberFullTextPage extends PageImpl<MemberTeamDto> {
+
+    private final boolean truncated;
+
+    public MemberFullTextPage(Page<MemberTeamDto> page, boolean truncated) {
+        super(page.getContent(), page.getPageable(), page.getTotalElements());
+        this.truncated = truncated;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+}
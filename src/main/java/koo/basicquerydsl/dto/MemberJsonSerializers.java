@@ -0,0 +1,87 @@
+package koo.basicquerydsl.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * MemberTeamDto, MemberDto를 리플렉션 없이 JsonGenerator로 바로 쓰는 serializer (@JsonComponent로 스프링의 ObjectMapper에 등록)
+ * - 기본 BeanSerializer는 필드마다 getter를 리플렉션으로 호출하고 null 검사, 필터 확인을 거치므로 큰 목록 응답(/v1/members)에서 CPU를 많이 쓴다.
+ * - 필드 이름은 미리 따옴표 처리, UTF-8 인코딩해 둔 SerializedString으로 쓴다.
+ * - 출력 버퍼는 JsonFactory가 스레드별로 재사용하는 BufferRecycler의 것을 쓰고, 응답은 MappingJackson2HttpMessageConverter가 servlet 출력 스트림에 바로 쓴다.
+ * - 출력(필드 순서, null 포함)은 기본 BeanSerializer와 같다. (MemberJsonSerializersTest)
+ */
+@JsonComponent
+public class MemberJsonSerializers {
+
+    private static final SerializableString MEMBER_ID = new SerializedString("memberId");
+    private static final SerializableString USERNAME = new SerializedString("username");
+    private static final SerializableString AGE = new SerializedString("age");
+    private static final SerializableString TEAM_ID = new SerializedString("teamId");
+    private static final SerializableString TEAM_NAME = new SerializedString("teamName");
+
+    /**
+     * ObjectMapper(SerializerProvider)를 거치지 않고 행 하나를 쓴다. (NDJSON 내보내기처럼 generator를 직접 다루는 곳에서)
+     */
+    public static void write(MemberTeamDto dto, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(MEMBER_ID);
+        writeNullable(dto.getMemberId(), generator);
+        generator.writeFieldName(USERNAME);
+        generator.writeString(dto.getUsername()); // null이면 null을 쓴다.
+        generator.writeFieldName(AGE);
+        generator.writeNumber(dto.getAge());
+        generator.writeFieldName(TEAM_ID);
+        writeNullable(dto.getTeamId(), generator);
+        generator.writeFieldName(TEAM_NAME);
+        generator.writeString(dto.getTeamName());
+        generator.writeEndObject();
+    }
+
+    public static void write(MemberDto dto, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(USERNAME);
+        generator.writeString(dto.getUsername());
+        generator.writeFieldName(AGE);
+        generator.writeNumber(dto.getAge());
+        generator.writeEndObject();
+    }
+
+    private static void writeNullable(Long value, JsonGenerator generator) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+
+    public static class MemberTeamDtoSerializer extends StdSerializer<MemberTeamDto> {
+
+        public MemberTeamDtoSerializer() {
+            super(MemberTeamDto.class);
+        }
+
+        @Override
+        public void serialize(MemberTeamDto value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            write(value, generator);
+        }
+    }
+
+    public static class MemberDtoSerializer extends StdSerializer<MemberDto> {
+
+        public MemberDtoSerializer() {
+            super(MemberDto.class);
+        }
+
+        @Override
+        public void serialize(MemberDto value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            write(value, generator);
+        }
+    }
+
+}
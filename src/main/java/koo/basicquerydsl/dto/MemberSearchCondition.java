@@ -3,9 +3,11 @@ package koo.basicquerydsl.dto;
 import lombok.Data;
 
 @Data
-public class MemberSearchCondition { // 회원명, 팀명, 나이(ageGoe, ageLoe)
+public class MemberSearchCondition { // 회원명, 회원명 접두사, 팀명, 나이(ageGoe, ageLoe)
 
     private String username;
+    private String usernamePrefix; // username이 이 값으로 시작 (like 'x%' 대신 범위 조건)
+    private boolean ignoreCase; // username, usernamePrefix를 대소문자 무시하고 비교
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
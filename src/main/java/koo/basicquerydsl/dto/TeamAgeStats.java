@@ -0,0 +1,19 @@
+package koo.basicquerydsl.dto;
+
+import lombok.Value;
+
+/**
+ * 팀별 나이 집계 (count, sum, avg, min, max), groupBy(team.name) 결과와 같은 값
+ * - 회원이 없으면 count, sum은 0이고 avg, min, max는 null
+ */
+@Value
+public class TeamAgeStats {
+
+    String teamName; // 전체 집계면 null
+    long count;
+    long sum;
+    Double avg;
+    Integer min;
+    Integer max;
+
+}
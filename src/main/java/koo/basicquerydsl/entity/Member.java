@@ -1,23 +1,54 @@
 package koo.basicquerydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = { // 검색 조건(MemberSearchCondition)의 접근 경로, MemberQueryPlanTest에서 실행 계획으로 확인한다.
+        @Index(name = "idx_member_username", columnList = "username"),     // username =, username 접두사 (범위)
+        @Index(name = "idx_member_username_lower", columnList = "username_lower"), // 대소문자 무시 username =, 접두사 (범위)
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"), // team.name = (팀을 먼저 찾고 팀의 회원), + age 범위
+        @Index(name = "idx_member_age_id", columnList = "age, member_id") // /v4 AGE 커서 seek (age >= ? and (age > ? or member_id > ?) order by age, member_id)
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // Team.members 컬렉션 캐시가 회원 id만 가지고 있으므로 회원도 캐시해야 한다.
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50) // IDENTITY는 insert 배치가 안 되므로 시퀀스를 50개씩 미리 받아온다. (pooled)
     @Column(name = "member_id")
     private Long id;
 
     private String username;
+
+    /**
+     * 대소문자 무시 검색용 lower(username), DB가 계산하는 컬럼이라 벌크 update로 username을 바꿔도 항상 맞다.
+     * - where lower(username) = ? 처럼 컬럼에 함수를 씌우면 인덱스를 못 쓰므로, 계산된 값을 저장하고 인덱스를 건다.
+     * - insert/update에 넣지 않고, 엔티티의 값은 채워지지 않으므로(조회 후 재조회 비용을 피하려고 @Generated를 쓰지 않는다.) 쿼리 조건에만 쓴다.
+     */
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    @Column(name = "username_lower", insertable = false, updatable = false, columnDefinition = "varchar(255) as lower(username)")
+    private String usernameLower;
+
     private int age;
 
+    /**
+     * 마지막으로 insert/update 된 시점의 change_seq 값, DB가 채우므로 벌크 update나 네이티브 SQL로 바꿔도 오른다.
+     * - 읽기 모델(MemberReadModel)이 파일 스냅샷 이후에 바뀐 회원만 DB에서 다시 읽는 데 쓴다. 삭제는 Tombstone에 남는다.
+     * - 기본값/on update 절과 인덱스는 스냅샷을 쓸 때만 MemberReadModel이 켠다. 그 전에는 항상 null이라 쓰기마다 시퀀스를 받지 않는다.
+     * - usernameLower처럼 엔티티의 값은 채워지지 않으므로 쿼리 조건에만 쓴다.
+     */
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
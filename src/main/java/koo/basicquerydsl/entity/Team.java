@@ -1,24 +1,38 @@
 package koo.basicquerydsl.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // 2차 캐시 (거의 바뀌지 않는 엔티티)
+@NaturalIdCache // 팀 이름으로 찾을 때도 2차 캐시 사용 (TeamJpaRepository.findByName)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50) // IDENTITY는 insert 배치가 안 되므로 시퀀스를 50개씩 미리 받아온다. (pooled)
     @Column(name = "team_id")
     private Long id;
 
+    @NaturalId(mutable = true) // 자연 키는 unique 제약조건으로 만들어지므로 team(name) 인덱스가 따로 필요 없다.
     private String name;
 
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    @Column(name = "change_seq", insertable = false, updatable = false) // Member.changeSeq 참고
+    private Long changeSeq;
+
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
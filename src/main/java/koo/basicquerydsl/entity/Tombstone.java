@@ -0,0 +1,33 @@
+package koo.basicquerydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * 삭제된 회원/팀 기록 (읽기 모델 스냅샷 이후의 삭제를 DB 전체를 읽지 않고 알기 위함, MemberReadModel)
+ * - id는 member.change_seq, team.change_seq와 같은 시퀀스(change_seq)에서 받으므로 스냅샷의 change_seq와 바로 비교할 수 있다.
+ * - 엔티티로 저장하지 않고 MemberReadModel이 JDBC로 넣고 지운다. (엔티티는 테이블과 시퀀스를 만들기 위함)
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class Tombstone {
+
+    public static final String CHANGE_SEQ = "change_seq";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_seq_generator")
+    @SequenceGenerator(name = "change_seq_generator", sequenceName = CHANGE_SEQ, allocationSize = 1) // member, team 컬럼 기본값은 MemberReadModel이 켤 때 이 시퀀스를 쓴다.
+    @Column(name = "tombstone_id")
+    private Long id;
+
+    @Column(name = "table_name")
+    private String tableName;
+
+    @Column(name = "row_id")
+    private Long rowId;
+
+}
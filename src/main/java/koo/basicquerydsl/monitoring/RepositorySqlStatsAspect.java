@@ -0,0 +1,64 @@
+package koo.basicquerydsl.monitoring;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.util.StringUtils;
+
+import java.util.StringJoiner;
+
+/**
+ * 리포지토리 메서드 호출마다 SQL 통계 구간을 연다. (sql.statements{type=repository, name=클래스.메서드})
+ * - 인자에 MemberSearchCondition이 있으면 값이 있는 필드를 지연 시간 태그(fields)로, 조건 전체를 느린 쿼리 로그에 남긴다.
+ */
+@Aspect
+public class RepositorySqlStatsAspect {
+
+    private final SqlStatementRecorder sqlStatementRecorder;
+
+    public RepositorySqlStatsAspect(SqlStatementRecorder sqlStatementRecorder) {
+        this.sqlStatementRecorder = sqlStatementRecorder;
+    }
+
+    @Around("execution(public * koo.basicquerydsl.repository.*.*(..)) && !within(koo.basicquerydsl.repository.MemberSearchQueryBuilder)") // 쿼리 빌더는 쿼리를 만들기만 한다.
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String name = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        SqlStatementScope scope = sqlStatementRecorder.begin("repository", name);
+        for (Object arg : joinPoint.getArgs()) {
+            if (arg instanceof MemberSearchCondition) {
+                scope.describe(searchFields((MemberSearchCondition) arg), arg.toString());
+                break;
+            }
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            sqlStatementRecorder.end(scope);
+        }
+    }
+
+    static String searchFields(MemberSearchCondition condition) { // 조합이 64가지라 태그 값 개수가 제한된다.
+        StringJoiner fields = new StringJoiner(",");
+        if (StringUtils.hasText(condition.getUsername())) {
+            fields.add("username");
+        }
+        if (StringUtils.hasText(condition.getUsernamePrefix())) {
+            fields.add("usernamePrefix");
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            fields.add("teamName");
+        }
+        if (condition.getAgeGoe() != null) {
+            fields.add("ageGoe");
+        }
+        if (condition.getAgeLoe() != null) {
+            fields.add("ageLoe");
+        }
+        if (condition.isIgnoreCase() && (StringUtils.hasText(condition.getUsername()) || StringUtils.hasText(condition.getUsernamePrefix()))) {
+            fields.add("ignoreCase");
+        }
+        return fields.length() > 0 ? fields.toString() : "none";
+    }
+
+}
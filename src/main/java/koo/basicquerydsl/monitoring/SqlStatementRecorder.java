@@ -0,0 +1,133 @@
+package koo.basicquerydsl.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 스레드별로 열려 있는 SqlStatementScope들에 SQL 실행 횟수, 조회 행 수, JDBC 실행 시간을 기록한다.
+ * - 구간은 중첩될 수 있고 (HTTP 요청 안에서 리포지토리 호출), SQL 하나는 열려 있는 모든 구간에 더해진다.
+ * - 구간이 끝나면 metrics(sql.statements, sql.rows, sql.jdbc.time, sql.n_plus_one.suspected)로 기록하고 N+1 의심 SQL은 로그로 남긴다.
+ * - 리포지토리 구간은 단계별 지연 시간 분포(repository.query.latency)도 기록하고, slowQueryThreshold를 넘으면 느린 쿼리 로그를 남긴다.
+ * - SQL 하나하나의 실행 시간은 종류(count, select, ...)별로 sql.execute.time에 기록한다. (count 쿼리만 따로 볼 수 있다.)
+ */
+@Slf4j
+public class SqlStatementRecorder {
+
+    private static final Logger slowQueryLog = LoggerFactory.getLogger("koo.basicquerydsl.SlowQuery"); // 별도 로그 파일로 분리할 수 있게 로거를 나눈다.
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99, 0.999};
+
+    private final ThreadLocal<Deque<SqlStatementScope>> scopes = ThreadLocal.withInitial(ArrayDeque::new);
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+    private final Duration slowQueryThreshold;
+
+    public SqlStatementRecorder(MeterRegistry meterRegistry, int nPlusOneThreshold, Duration slowQueryThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    public SqlStatementScope begin(String type, String name) {
+        SqlStatementScope scope = new SqlStatementScope(type, name);
+        scopes.get().push(scope);
+        return scope;
+    }
+
+    public void end(SqlStatementScope scope) {
+        scope.finish();
+        Deque<SqlStatementScope> current = scopes.get();
+        current.remove(scope);
+        if (current.isEmpty()) {
+            scopes.remove();
+        }
+        record(scope);
+    }
+
+    public SqlStatementScope outermost() { // HTTP 요청 구간 (없으면 null)
+        return scopes.get().peekLast();
+    }
+
+    public int getNPlusOneThreshold() {
+        return nPlusOneThreshold;
+    }
+
+    void onStatement(String sql) {
+        for (SqlStatementScope scope : scopes.get()) {
+            scope.onStatement(sql);
+        }
+    }
+
+    void onExecuted(String sql, long nanos) {
+        Deque<SqlStatementScope> current = scopes.get();
+        for (SqlStatementScope scope : current) {
+            scope.onExecuted(nanos);
+        }
+
+        if (sql != null) {
+            SqlStatementScope innermost = current.peekFirst();
+            String method = innermost != null && innermost.getType().equals("repository") ? innermost.getName() : "none";
+            latencyTimer("sql.execute.time", Tags.of("kind", SqlStatementScope.kind(sql), "method", method))
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void onResultSetClosed() {
+        for (SqlStatementScope scope : scopes.get()) {
+            scope.onResultSetClosed();
+        }
+    }
+
+    void onRow() {
+        for (SqlStatementScope scope : scopes.get()) {
+            scope.onRow();
+        }
+    }
+
+    private void record(SqlStatementScope scope) {
+        Tags tags = Tags.of("type", scope.getType(), "name", scope.getName());
+        meterRegistry.summary("sql.statements", tags).record(scope.getStatements());
+        meterRegistry.summary("sql.rows", tags).record(scope.getRows());
+        meterRegistry.timer("sql.jdbc.time", tags).record(scope.getJdbcNanos(), TimeUnit.NANOSECONDS);
+
+        Map<String, Integer> suspects = scope.suspectedNPlusOne(nPlusOneThreshold);
+        if (!suspects.isEmpty()) {
+            meterRegistry.counter("sql.n_plus_one.suspected", tags).increment();
+            log.warn("N+1 의심 {} => {}", scope, suspects);
+        }
+
+        if (scope.getType().equals("repository")) {
+            recordLatency(scope);
+        }
+    }
+
+    private void recordLatency(SqlStatementScope scope) { // /actuator/metrics/repository.query.latency?tag=method:...&tag=phase:execute
+        Tags tags = Tags.of("method", scope.getName(), "fields", scope.getSearchFields());
+        latencyTimer("repository.query.latency", tags.and("phase", "render")).record(scope.getRenderNanos(), TimeUnit.NANOSECONDS);
+        latencyTimer("repository.query.latency", tags.and("phase", "execute")).record(scope.getJdbcNanos(), TimeUnit.NANOSECONDS);
+        latencyTimer("repository.query.latency", tags.and("phase", "hydrate")).record(scope.getHydrateNanos(), TimeUnit.NANOSECONDS);
+        latencyTimer("repository.query.latency", tags.and("phase", "total")).record(scope.getElapsedNanos(), TimeUnit.NANOSECONDS);
+
+        if (scope.getElapsedNanos() >= slowQueryThreshold.toNanos()) {
+            slowQueryLog.warn("느린 쿼리 {} fields={} condition={} {}", scope.getName(), scope.getSearchFields(), scope.getDetail(), scope.timings());
+        }
+    }
+
+    private Timer latencyTimer(String name, Tags tags) { // 지연 시간 분포 (Micrometer가 HdrHistogram으로 백분위를 계산한다.)
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,191 @@
+package koo.basicquerydsl.monitoring;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 한 구간(HTTP 요청 하나, 리포지토리 메서드 호출 하나)에서 실행된 SQL 통계
+ * - 같은 모양(파라미터 값만 다른)의 SQL이 반복되면 N+1로 의심한다.
+ * - 구간의 경과 시간을 단계별로 나눈다. SQL마다 [준비 전까지 = render] -> [JDBC 실행 = execute] -> [ResultSet을 닫을 때까지 = hydrate] 순서로 흘러간다.
+ *   render: 조건 조립, JPQL 렌더링, Hibernate의 JPQL -> SQL 변환, 파라미터 바인딩
+ *   hydrate: 행을 읽어 dto/엔티티를 만드는 시간 (마지막 SQL 이후 결과를 조립하는 시간도 포함)
+ */
+public class SqlStatementScope {
+
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern IN_LIST = Pattern.compile("in\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String type; // http, repository, test
+    private String name;
+    private String detail; // 느린 쿼리 로그에 남길 내용 (검색 조건 등)
+    private String searchFields = "none"; // 검색 조건 중 값이 있는 필드 (username,teamName,ageGoe,ageLoe)
+
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+    private final Map<String, Integer> shapeCounts = new HashMap<>();
+
+    private final long startNanos;
+    private long markNanos; // 마지막으로 단계가 바뀐 시각
+    private long renderNanos;
+    private long hydrateNanos;
+    private long elapsedNanos = -1; // 구간이 끝나면 정해진다.
+
+    SqlStatementScope(String type, String name) {
+        this.type = type;
+        this.name = name;
+        this.startNanos = System.nanoTime();
+        this.markNanos = startNanos;
+    }
+
+    void rename(String name) {
+        this.name = name;
+    }
+
+    void describe(String searchFields, String detail) {
+        this.searchFields = searchFields;
+        this.detail = detail;
+    }
+
+    void onStatement(String sql) {
+        statements++;
+        shapeCounts.merge(shape(sql), 1, Integer::sum);
+        mark(true);
+    }
+
+    void onExecuted(long nanos) {
+        long now = System.nanoTime();
+        renderNanos += Math.max(0, now - nanos - markNanos); // SQL 준비 후 실행 전까지 (파라미터 바인딩)
+        jdbcNanos += nanos;
+        markNanos = now;
+    }
+
+    void onResultSetClosed() {
+        mark(false);
+    }
+
+    void finish() {
+        mark(false);
+        elapsedNanos = markNanos - startNanos;
+    }
+
+    private void mark(boolean render) {
+        long now = System.nanoTime();
+        if (render) {
+            renderNanos += now - markNanos;
+        } else {
+            hydrateNanos += now - markNanos;
+        }
+        markNanos = now;
+    }
+
+    void onRow() {
+        rows++;
+    }
+
+    public void reset() { // 테스트에서 데이터 준비 후 측정을 다시 시작할 때
+        statements = 0;
+        rows = 0;
+        jdbcNanos = 0;
+        shapeCounts.clear();
+        renderNanos = 0;
+        hydrateNanos = 0;
+        markNanos = System.nanoTime();
+    }
+
+    public Map<String, Integer> suspectedNPlusOne(int threshold) { // threshold번 이상 반복된 SQL 모양과 횟수
+        Map<String, Integer> suspects = new LinkedHashMap<>();
+        shapeCounts.forEach((shape, count) -> {
+            if (count >= threshold && shape.startsWith("select")) {
+                suspects.put(shape, count);
+            }
+        });
+        return suspects;
+    }
+
+    static String kind(String sql) { // count, select, insert, update, delete, other
+        String shape = COMMENT.matcher(sql).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+        if (shape.startsWith("select count(")) {
+            return "count";
+        }
+        int end = 0;
+        while (end < shape.length() && Character.isLetter(shape.charAt(end))) {
+            end++;
+        }
+        String keyword = shape.substring(0, end);
+        switch (keyword) {
+            case "select":
+            case "insert":
+            case "update":
+            case "delete":
+                return keyword;
+            default:
+                return "other";
+        }
+    }
+
+    static String shape(String sql) { // 주석, 리터럴, in절 개수 차이를 없앤 SQL 모양
+        String shape = COMMENT.matcher(sql).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = WHITESPACE.matcher(shape.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        return IN_LIST.matcher(shape).replaceAll("in (?)");
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public String getSearchFields() {
+        return searchFields;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public long getRenderNanos() {
+        return renderNanos;
+    }
+
+    public long getHydrateNanos() {
+        return hydrateNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos >= 0 ? elapsedNanos : System.nanoTime() - startNanos;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + name + " (statements=" + statements + ", rows=" + rows + ", jdbcMillis=" + jdbcNanos / 1_000_000 + ")";
+    }
+
+    public String timings() { // 느린 쿼리 로그용
+        return String.format("elapsed=%.1fms, render=%.1fms, execute=%.1fms, hydrate=%.1fms, statements=%d, rows=%d",
+                getElapsedNanos() / 1e6, renderNanos / 1e6, jdbcNanos / 1e6, hydrateNanos / 1e6, statements, rows);
+    }
+
+}
@@ -0,0 +1,62 @@
+package koo.basicquerydsl.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * SQL 실행 통계, N+1 탐지 (sql-stats.enabled: true 일 때만, application-debug.yml 참고)
+ * - 응답 헤더(X-Sql-*)는 debug 프로필에서만 내려준다. (SqlStatsResponseHeaderAdvice)
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "sql-stats", name = "enabled", havingValue = "true")
+public class SqlStatsConfig {
+
+    @Bean
+    public SqlStatementRecorder sqlStatementRecorder(MeterRegistry meterRegistry,
+                                                     @Value("${sql-stats.n-plus-one-threshold:5}") int nPlusOneThreshold,
+                                                     @Value("${sql-stats.slow-query-threshold-ms:500}") long slowQueryThresholdMillis) {
+        return new SqlStatementRecorder(meterRegistry, nPlusOneThreshold, Duration.ofMillis(slowQueryThresholdMillis));
+    }
+
+    @Bean
+    public SqlStatsStatementInspector sqlStatsStatementInspector(SqlStatementRecorder sqlStatementRecorder) { // HibernateConfig에서 다른 StatementInspector와 함께 등록된다.
+        return new SqlStatsStatementInspector(sqlStatementRecorder);
+    }
+
+    @Bean
+    public static BeanPostProcessor sqlStatsDataSourcePostProcessor(ObjectProvider<SqlStatementRecorder> sqlStatementRecorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof DataSource && beanName.equals("dataSource") && !(bean instanceof SqlStatsDataSource)) { // 복제본 라우팅을 쓰면 원본/복제본 풀은 감싸지 않는다. (중복 집계)
+                    return new SqlStatsDataSource((DataSource) bean, sqlStatementRecorder.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatsFilter> sqlStatsFilter(SqlStatementRecorder sqlStatementRecorder) {
+        FilterRegistrationBean<SqlStatsFilter> registration = new FilterRegistrationBean<>(new SqlStatsFilter(sqlStatementRecorder));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE); // 다른 필터에서 나가는 SQL까지 포함
+        return registration;
+    }
+
+    @Bean
+    public RepositorySqlStatsAspect repositorySqlStatsAspect(SqlStatementRecorder sqlStatementRecorder) {
+        return new RepositorySqlStatsAspect(sqlStatementRecorder);
+    }
+
+}
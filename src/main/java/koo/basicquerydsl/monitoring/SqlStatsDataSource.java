@@ -0,0 +1,103 @@
+package koo.basicquerydsl.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JDBC 실행 시간과 조회 행 수를 재기 위해 Connection, Statement, ResultSet을 감싸는 DataSource
+ * - StatementInspector는 SQL 문자열만 볼 수 있으므로 실행 시간, 행 수는 JDBC 레벨에서 잰다.
+ */
+public class SqlStatsDataSource extends DelegatingDataSource {
+
+    private final SqlStatementRecorder sqlStatementRecorder;
+
+    public SqlStatsDataSource(DataSource targetDataSource, SqlStatementRecorder sqlStatementRecorder) {
+        super(targetDataSource);
+        this.sqlStatementRecorder = sqlStatementRecorder;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            if (isEquals(method)) {
+                return proxy == args[0];
+            }
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) { // createStatement, prepareStatement, prepareCall
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return wrapStatement((Statement) result, method.getReturnType(), sql);
+            }
+            return result;
+        });
+    }
+
+    private Object wrapStatement(Statement statement, Class<?> statementType, String preparedSql) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{statementType}, (proxy, method, args) -> {
+            if (isEquals(method)) {
+                return proxy == args[0];
+            }
+            Object result;
+            if (method.getName().startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql; // Statement.execute(sql)
+                long start = System.nanoTime();
+                try {
+                    result = invoke(statement, method, args);
+                } finally {
+                    sqlStatementRecorder.onExecuted(sql, System.nanoTime() - start);
+                }
+            } else {
+                result = invoke(statement, method, args);
+            }
+
+            if (result instanceof ResultSet && !method.getName().equals("getGeneratedKeys")) { // executeQuery, getResultSet
+                return wrapResultSet((ResultSet) result);
+            }
+            return result;
+        });
+    }
+
+    private ResultSet wrapResultSet(ResultSet resultSet) {
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            if (isEquals(method)) {
+                return proxy == args[0];
+            }
+            Object result = invoke(resultSet, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                sqlStatementRecorder.onRow();
+            } else if (method.getName().equals("close")) { // 행을 다 읽고 dto/엔티티를 만든 뒤에 닫힌다. (hydrate 단계 끝)
+                sqlStatementRecorder.onResultSetClosed();
+            }
+            return result;
+        });
+    }
+
+    private static boolean isEquals(Method method) { // 감싼 객체 자신과만 같다. (대상 객체의 equals에 프록시를 넘기면 항상 false)
+        return method.getName().equals("equals") && method.getParameterCount() == 1;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) { // SQLException 등 원래 예외를 그대로 던진다.
+            throw e.getTargetException();
+        }
+    }
+
+}
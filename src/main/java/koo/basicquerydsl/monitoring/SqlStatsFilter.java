@@ -0,0 +1,35 @@
+package koo.basicquerydsl.monitoring;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * HTTP 요청마다 SQL 통계 구간을 연다. (sql.statements{type=http, name=GET /v1/members})
+ */
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    private final SqlStatementRecorder sqlStatementRecorder;
+
+    public SqlStatsFilter(SqlStatementRecorder sqlStatementRecorder) {
+        this.sqlStatementRecorder = sqlStatementRecorder;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementScope scope = sqlStatementRecorder.begin("http", request.getMethod());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE); // 태그 개수가 늘어나지 않도록 실제 URI 대신 매핑된 패턴을 이름으로 쓴다.
+            scope.rename(request.getMethod() + " " + (pattern != null ? pattern : "UNMAPPED"));
+            sqlStatementRecorder.end(scope);
+        }
+    }
+
+}
@@ -0,0 +1,47 @@
+package koo.basicquerydsl.monitoring;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 응답 본문을 쓰기 직전에 지금까지의 SQL 통계를 응답 헤더로 내려준다. (debug 프로필)
+ * - 본문을 쓰기 시작하면 헤더를 바꿀 수 없으므로 필터가 아니라 ResponseBodyAdvice에서 처리한다.
+ */
+@Profile("debug")
+@ConditionalOnProperty(prefix = "sql-stats", name = "enabled", havingValue = "true")
+@RestControllerAdvice
+public class SqlStatsResponseHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    private final SqlStatementRecorder sqlStatementRecorder;
+
+    public SqlStatsResponseHeaderAdvice(SqlStatementRecorder sqlStatementRecorder) {
+        this.sqlStatementRecorder = sqlStatementRecorder;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatementScope scope = sqlStatementRecorder.outermost();
+        if (scope != null) {
+            response.getHeaders().set("X-Sql-Statements", String.valueOf(scope.getStatements()));
+            response.getHeaders().set("X-Sql-Rows", String.valueOf(scope.getRows()));
+            response.getHeaders().set("X-Sql-Jdbc-Millis", String.valueOf(scope.getJdbcNanos() / 1_000_000));
+            response.getHeaders().set("X-Sql-N-Plus-One", String.valueOf(scope.suspectedNPlusOne(sqlStatementRecorder.getNPlusOneThreshold()).size()));
+        }
+        return body;
+    }
+
+}
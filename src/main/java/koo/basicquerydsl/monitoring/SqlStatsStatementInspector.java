@@ -0,0 +1,22 @@
+package koo.basicquerydsl.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate가 SQL을 준비할 때마다 SqlStatementRecorder에 알린다. (실행 횟수, SQL 모양별 횟수)
+ */
+public class SqlStatsStatementInspector implements StatementInspector {
+
+    private final SqlStatementRecorder sqlStatementRecorder;
+
+    public SqlStatsStatementInspector(SqlStatementRecorder sqlStatementRecorder) {
+        this.sqlStatementRecorder = sqlStatementRecorder;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        sqlStatementRecorder.onStatement(sql);
+        return sql;
+    }
+
+}
@@ -0,0 +1,18 @@
+package koo.basicquerydsl.repository;
+
+/**
+ * 클라이언트가 보낸 검색 요청(cursor, size, usernamePrefix 등)이 잘못됐다. 컨트롤러는 이 예외만 400으로 응답한다.
+ * - 메시지는 응답 본문에 그대로 나가므로 요청 값만 담고 내부 정보(원인 예외 메시지 등)는 넣지 않는다.
+ * - IllegalArgumentException을 상속하므로 인자 검증 실패로 다루던 호출부는 그대로 동작한다.
+ */
+public class InvalidSearchRequestException extends IllegalArgumentException {
+
+    public InvalidSearchRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidSearchRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
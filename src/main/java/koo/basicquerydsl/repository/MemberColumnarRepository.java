@@ -0,0 +1,125 @@
+package koo.basicquerydsl.repository;
+
+import koo.basicquerydsl.dto.MemberColumns;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 회원 검색 결과를 MemberColumns(기본형 배열)로 조회한다. (searchByWhereParameter와 같은 조건)
+ * - JPQL/Tuple을 거치면 행마다 Object[], Long, String이 만들어지므로 JDBC ResultSet에서 getLong/getInt로 바로 배열에 담는다.
+ * - 팀 이름은 같은 쿼리에서 team을 조인해서 읽되, 처음 보는 팀 id일 때만 getString으로 꺼내 사전에 넣는다. (행마다 String을 만들지 않는다.)
+ *   team 테이블을 따로 먼저 읽으면 그 사이에 커밋된 팀의 회원이 사전에 없을 수 있으므로 한 쿼리로 읽는다.
+ * - 조건 조합(64가지)별 SQL은 미리 만들어 둔다. (MemberSearchQueryCompiler와 같은 방식)
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberColumnarRepository {
+
+    private static final String SELECT = "select m.member_id, m.age, m.team_id, t.name from member m";
+
+    private final EntityManager em;
+    private final int fetchSize;
+    private final String[] templates = new String[64];
+
+    public MemberColumnarRepository(EntityManager em, @Value("${member.export.fetch-size:1000}") int fetchSize) {
+        this.em = em;
+        this.fetchSize = fetchSize;
+        for (int fields = 0; fields < templates.length; fields++) {
+            templates[fields] = compile(fields);
+        }
+    }
+
+    String sql(MemberSearchCondition condition) { // 조건에 맞는 SQL (MemberQueryPlanTest에서 실행 계획 확인, JDBC로 직접 실행해서 StatementInspector로는 모을 수 없다.)
+        return templates[MemberSearchQueryCompiler.fields(condition)];
+    }
+
+    public MemberColumns fetchColumns(MemberSearchCondition condition) {
+        em.flush(); // JDBC로 직접 읽으므로 영속성 컨텍스트의 변경을 먼저 반영한다.
+        int fields = MemberSearchQueryCompiler.fields(condition);
+
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            MemberColumns.Builder columns = new MemberColumns.Builder(fetchSize);
+
+            try (PreparedStatement members = connection.prepareStatement(templates[fields])) {
+                members.setFetchSize(fetchSize);
+                bind(members, fields, condition);
+                try (ResultSet rs = members.executeQuery()) {
+                    while (rs.next()) {
+                        long teamId = rs.getLong(3);
+                        if (rs.wasNull()) {
+                            columns.add(rs.getLong(1), rs.getInt(2), MemberColumns.NO_TEAM);
+                            continue;
+                        }
+                        if (!columns.hasTeam(teamId)) {
+                            columns.team(teamId, rs.getString(4));
+                        }
+                        columns.add(rs.getLong(1), rs.getInt(2), teamId);
+                    }
+                }
+            }
+            return columns.build();
+        });
+    }
+
+    private static void bind(PreparedStatement statement, int fields, MemberSearchCondition condition) throws SQLException {
+        int index = 1;
+        boolean ignoreCase = (fields & MemberSearchQueryCompiler.IGNORE_CASE) != 0;
+        if ((fields & MemberSearchQueryCompiler.USERNAME) != 0) {
+            statement.setString(index++, ignoreCase ? MemberSearchQueryBuilder.lower(condition.getUsername()) : condition.getUsername());
+        }
+        if ((fields & MemberSearchQueryCompiler.USERNAME_PREFIX) != 0) {
+            String prefix = ignoreCase ? MemberSearchQueryBuilder.lower(condition.getUsernamePrefix()) : condition.getUsernamePrefix();
+            statement.setString(index++, prefix);
+            statement.setString(index++, MemberSearchQueryBuilder.prefixUpperBound(prefix));
+        }
+        if ((fields & MemberSearchQueryCompiler.TEAM_NAME) != 0) {
+            statement.setString(index++, condition.getTeamName());
+        }
+        if ((fields & MemberSearchQueryCompiler.AGE_GOE) != 0) {
+            statement.setInt(index++, condition.getAgeGoe());
+        }
+        if ((fields & MemberSearchQueryCompiler.AGE_LOE) != 0) {
+            statement.setInt(index, condition.getAgeLoe());
+        }
+    }
+
+    private static String compile(int fields) {
+        StringBuilder sql = new StringBuilder(SELECT);
+        if ((fields & MemberSearchQueryCompiler.TEAM_NAME) != 0) {
+            sql.append(" join team t on t.team_id = m.team_id");
+        } else {
+            sql.append(" left join team t on t.team_id = m.team_id"); // 팀 이름 사전용
+        }
+        String username = (fields & MemberSearchQueryCompiler.IGNORE_CASE) != 0 ? "m.username_lower" : "m.username";
+        String separator = " where ";
+        if ((fields & MemberSearchQueryCompiler.USERNAME) != 0) {
+            sql.append(separator).append(username).append(" = ?");
+            separator = " and ";
+        }
+        if ((fields & MemberSearchQueryCompiler.USERNAME_PREFIX) != 0) {
+            sql.append(separator).append(username).append(" >= ? and ").append(username).append(" < ?");
+            separator = " and ";
+        }
+        if ((fields & MemberSearchQueryCompiler.TEAM_NAME) != 0) {
+            sql.append(separator).append("t.name = ?");
+            separator = " and ";
+        }
+        if ((fields & MemberSearchQueryCompiler.AGE_GOE) != 0) {
+            sql.append(separator).append("m.age >= ?");
+            separator = " and ";
+        }
+        if ((fields & MemberSearchQueryCompiler.AGE_LOE) != 0) {
+            sql.append(separator).append("m.age <= ?");
+        }
+        return sql.toString();
+    }
+
+}
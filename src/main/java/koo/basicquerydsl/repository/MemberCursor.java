@@ -0,0 +1,63 @@
+package koo.basicquerydsl.repository;
+
+import koo.basicquerydsl.dto.MemberTeamDto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * keyset 페이징용 커서 (마지막으로 읽은 행의 정렬 키 + member.id)
+ * - 클라이언트에게는 Base64 문자열로만 노출되므로 내부 포맷은 언제든 바꿀 수 있다. (opaque token)
+ */
+public final class MemberCursor {
+
+    public enum SortKey { ID, AGE } // ID: member.id 순, AGE: member.age 순 (같은 나이는 member.id로 순서를 정한다.)
+
+    private static final String VERSION = "v1";
+    private static final String DELIMITER = ":";
+
+    private final SortKey sortKey;
+    private final int age;
+    private final long memberId;
+
+    private MemberCursor(SortKey sortKey, int age, long memberId) {
+        this.sortKey = sortKey;
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    public static MemberCursor after(SortKey sortKey, MemberTeamDto last) {
+        return new MemberCursor(sortKey, last.getAge(), last.getMemberId());
+    }
+
+    public static MemberCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(DELIMITER);
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new InvalidSearchRequestException("지원하지 않는 커서입니다. cursor=" + token);
+            }
+            return new MemberCursor(SortKey.valueOf(parts[1]), Integer.parseInt(parts[2]), Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException e) { // Base64, enum, 숫자 파싱 실패 모두 IllegalArgumentException 계열
+            throw new InvalidSearchRequestException("잘못된 커서입니다. cursor=" + token, e);
+        }
+    }
+
+    public String encode() {
+        String raw = VERSION + DELIMITER + sortKey.name() + DELIMITER + age + DELIMITER + memberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public long getMemberId() {
+        return memberId;
+    }
+
+}
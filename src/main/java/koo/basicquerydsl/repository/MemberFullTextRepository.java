@@ -0,0 +1,180 @@
+package koo.basicquerydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQuery;
+import koo.basicquerydsl.dto.MemberFullTextPage;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import koo.basicquerydsl.dto.QMemberTeamDto;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.entity.QTeam;
+import koo.basicquerydsl.repository.support.MemberFullTextIndex;
+import org.hibernate.Session;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 회원명, 팀명 전문 검색 (/v1 ~ /v3의 q 파라미터)
+ * - 검색어를 단어로 나눠 단어마다 전문 검색 색인(MemberFullTextIndex)을 찾고, 찾은 회원 id, 팀 id로 MemberTeamDto를 조회한다. (나머지 검색 조건도 같이 적용)
+ * - 단어 중 하나라도 회원명이나 팀명에 있으면 결과에 포함한다. (OR)
+ * - 점수 = 회원명에서 찾은 단어 수 * 2 + 팀명에서 찾은 단어 수, SQL의 case 식으로 계산해서 점수가 높은 순, 같으면 member.id 순으로 DB에서 정렬, 페이징한다.
+ *   (팀명으로 찾은 큰 팀의 회원을 모두 메모리로 읽지 않는다.) totalElements는 별도 count 쿼리
+ * - 단어마다 최대 member.full-text.max-hits개까지만 찾으므로, 그만큼 찾은 단어가 있으면 결과에 truncated로 알린다.
+ */
+@Repository
+@Transactional(readOnly = true)
+@ConditionalOnProperty(name = "member.full-text.enabled", havingValue = "true")
+public class MemberFullTextRepository {
+
+    static final int MAX_WORDS = 5;
+    private static final int USERNAME_WEIGHT = 2;
+    private static final int TEAM_NAME_WEIGHT = 1;
+
+    private final EntityManager em;
+    private final MemberSearchQueryBuilder memberSearchQueryBuilder;
+    private final MemberFullTextIndex memberFullTextIndex;
+    private final QMember member = QMember.member;
+    private final QTeam team = QTeam.team;
+
+    public MemberFullTextRepository(EntityManager em, MemberSearchQueryBuilder memberSearchQueryBuilder,
+                                    MemberFullTextIndex memberFullTextIndex) {
+        this.em = em;
+        this.memberSearchQueryBuilder = memberSearchQueryBuilder;
+        this.memberFullTextIndex = memberFullTextIndex;
+    }
+
+    public List<MemberTeamDto> search(String q, MemberSearchCondition condition) {
+        return search(q, condition, Pageable.unpaged()).getContent();
+    }
+
+    public MemberFullTextPage search(String q, MemberSearchCondition condition, Pageable pageable) {
+        Matches matches = find(words(q));
+        BooleanExpression matched = matches.predicate();
+        if (matched == null) {
+            return new MemberFullTextPage(new PageImpl<>(Collections.emptyList(), pageable, 0), matches.truncated);
+        }
+
+        NumberExpression<Integer> score = score(matches.usernames, member.id, USERNAME_WEIGHT)
+                .add(score(matches.teamNames, member.team.id, TEAM_NAME_WEIGHT)); // member.team.id는 team 조인 없이 member.team_id
+        JPAQuery<MemberTeamDto> query = memberSearchQueryBuilder
+                .select(memberTeamDto(), condition, matched)
+                .orderBy(score.desc(), member.id.asc());
+        if (pageable.isUnpaged()) {
+            List<MemberTeamDto> content = query.fetch();
+            return new MemberFullTextPage(new PageImpl<>(content, pageable, content.size()), matches.truncated);
+        }
+
+        List<MemberTeamDto> content = query
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+        return new MemberFullTextPage(PageableExecutionUtils.getPage(content, pageable,
+                () -> memberSearchQueryBuilder.count(condition, matched).fetchCount()), matches.truncated);
+    }
+
+    private Matches find(List<String> words) {
+        Matches matches = new Matches();
+        if (words.isEmpty()) {
+            return matches;
+        }
+
+        em.flush(); // 색인은 트리거로 갱신되므로 영속성 컨텍스트의 변경을 먼저 반영한다.
+        em.unwrap(Session.class).doWork(connection -> {
+            for (String word : words) {
+                List<MemberFullTextIndex.Hit> hits = memberFullTextIndex.search(connection, word);
+                if (hits.size() >= memberFullTextIndex.getMaxHits()) {
+                    matches.truncated = true;
+                }
+                for (MemberFullTextIndex.Hit hit : hits) {
+                    Map<Long, Integer> found = MemberFullTextIndex.MEMBER_TABLE.equals(hit.getTable()) ? matches.usernames : matches.teamNames;
+                    found.merge(hit.getId(), 1, Integer::sum);
+                }
+            }
+        });
+        return matches;
+    }
+
+    /**
+     * 찾은 단어 수가 같은 id끼리 묶어서 case when id in (...) then 점수 ... else 0 end (단어가 최대 MAX_WORDS개라 분기도 그 이하)
+     * - 점수는 파라미터가 아닌 리터럴로 넣는다. (H2는 then ? 만으로는 case 식의 타입을 정하지 못한다.)
+     */
+    private static NumberExpression<Integer> score(Map<Long, Integer> matches, NumberPath<Long> id, int weight) {
+        Map<Integer, List<Long>> idsByCount = new TreeMap<>(Collections.reverseOrder());
+        matches.forEach((matchedId, count) -> idsByCount.computeIfAbsent(count, key -> new ArrayList<>()).add(matchedId));
+
+        CaseBuilder.Cases<Integer, NumberExpression<Integer>> cases = null;
+        for (Map.Entry<Integer, List<Long>> entry : idsByCount.entrySet()) {
+            BooleanExpression in = id.in(entry.getValue());
+            NumberExpression<Integer> points = literal(entry.getKey() * weight);
+            cases = cases == null ? new CaseBuilder().when(in).then(points) : cases.when(in).then(points);
+        }
+        return cases == null ? literal(0) : cases.otherwise(literal(0));
+    }
+
+    private static NumberExpression<Integer> literal(int value) {
+        return Expressions.numberTemplate(Integer.class, String.valueOf(value));
+    }
+
+    /**
+     * 검색어를 색인과 같은 기준(공백, 구두점으로 분리)으로 단어로 나눈다. 중복은 빼고 앞에서부터 MAX_WORDS개까지
+     */
+    static List<String> words(String q) {
+        if (!StringUtils.hasText(q)) {
+            return Collections.emptyList();
+        }
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : q.toUpperCase(Locale.ROOT).split("[\\s\\p{Punct}]+")) {
+            if (!word.isEmpty() && words.size() < MAX_WORDS) {
+                words.add(word);
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    private QMemberTeamDto memberTeamDto() {
+        return new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")
+        );
+    }
+
+    private class Matches { // id -> 찾은 단어 수
+
+        private final Map<Long, Integer> usernames = new HashMap<>();
+        private final Map<Long, Integer> teamNames = new HashMap<>();
+        private boolean truncated;
+
+        private BooleanExpression predicate() { // member.team.id는 team 별칭을 쓰지 않으므로 팀 없는 회원도 left join으로 남는다.
+            BooleanExpression byUsername = usernames.isEmpty() ? null : member.id.in(usernames.keySet());
+            BooleanExpression byTeamName = teamNames.isEmpty() ? null : member.team.id.in(teamNames.keySet());
+            if (byUsername == null) {
+                return byTeamName;
+            }
+            return byTeamName == null ? byUsername : byUsername.or(byTeamName);
+        }
+    }
+
+}
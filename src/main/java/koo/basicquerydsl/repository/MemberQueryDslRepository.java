@@ -1,8 +1,9 @@
 package koo.basicquerydsl.repository;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import koo.basicquerydsl.dto.MemberSearchCondition;
 import koo.basicquerydsl.dto.MemberTeamDto;
@@ -10,23 +11,35 @@ import koo.basicquerydsl.dto.QMemberTeamDto;
 import koo.basicquerydsl.entity.Member;
 import koo.basicquerydsl.entity.QMember;
 import koo.basicquerydsl.entity.QTeam;
+import koo.basicquerydsl.repository.support.MemberSearchResultCache;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
+@Transactional(readOnly = true) // 조회 전용, 복제본 라우팅을 켜면 복제본에서 읽는다. (ReadReplicaConfig)
 public class MemberQueryDslRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory; // 이걸 그냥 스프링 빈으로 등록해도 된다. 그러면 @RequiredArgsConstruct 사용 가능
+    private final MemberSearchQueryBuilder memberSearchQueryBuilder;
+    private final MemberSearchResultCache memberSearchResultCache;
+    private final MemberSearchQueryCompiler memberSearchQueryCompiler;
     private QMember member = QMember.member;
     private QTeam team = QTeam.team;
 
-    public MemberQueryDslRepository(EntityManager em) {
+    public MemberQueryDslRepository(EntityManager em, MemberSearchQueryBuilder memberSearchQueryBuilder, MemberSearchResultCache memberSearchResultCache,
+                                    MemberSearchQueryCompiler memberSearchQueryCompiler) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.memberSearchQueryBuilder = memberSearchQueryBuilder;
+        this.memberSearchResultCache = memberSearchResultCache;
+        this.memberSearchQueryCompiler = memberSearchQueryCompiler;
     }
 
     public List<Member> findAll() {
@@ -49,7 +62,8 @@ public class MemberQueryDslRepository {
             builder.and(member.username.eq(condition.getUsername()));
         }
 
-        if (StringUtils.hasText(condition.getTeamName())) {
+        boolean teamNameFiltered = StringUtils.hasText(condition.getTeamName());
+        if (teamNameFiltered) {
             builder.and(team.name.eq(condition.getTeamName()));
         }
 
@@ -61,7 +75,7 @@ public class MemberQueryDslRepository {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
 
-        return queryFactory
+        JPAQuery<MemberTeamDto> query = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -69,46 +83,59 @@ public class MemberQueryDslRepository {
                         team.id.as("teamId"),
                         team.name.as("teamName")
                 ))
-                .from(member)
-                .leftJoin(member.team, team)
+                .from(member);
+        return (teamNameFiltered ? query.join(member.team, team) : query.leftJoin(member.team, team)) // team.name = ?이면 팀 없는 회원은 어차피 빠지므로 inner join (H2는 left join이면 member를 먼저 전체 조회한다.)
                 .where(builder)
                 .fetch();
     }
 
-    public List<MemberTeamDto> searchByWhereParameter (MemberSearchCondition condition) { // where절 다중 파라미터를 활용한 동적 쿼리
-        return queryFactory
+    public List<MemberTeamDto> searchByWhereParameter (MemberSearchCondition condition) { // where절 다중 파라미터를 활용한 동적 쿼리 (조건 조립은 MemberSearchQueryBuilder)
+        return memberSearchResultCache.get(condition, () -> memberSearchQueryBuilder // 결과 캐시는 member.search-cache.enabled: true 일 때만 사용
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
                         member.age,
                         team.id.as("teamId"),
                         team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+                ), condition)
+                .fetch());
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
+    public List<MemberTeamDto> searchByCompiledQuery(MemberSearchCondition condition) { // 미리 만들어 둔 JPQL에 파라미터만 바인딩 (MemberSearchQueryCompiler)
+        return memberSearchQueryCompiler
+                .query(condition)
+                .getResultList();
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
-    }
+    /**
+     * searchByWhereParameter와 같은 조건이지만 결과를 List에 모으지 않고 한 건씩 action에 넘긴다. (서버 커서 + fetchSize)
+     * - 전체 결과를 메모리에 올리지 않으므로 대량 조회(export)에 사용한다. 트랜잭션 안에서 호출해야 커서가 유지된다.
+     * - DTO 조회라 영속성 컨텍스트에 엔티티가 쌓이지는 않지만, action에서 엔티티를 건드려도 메모리가 늘지 않도록 fetchSize마다 비운다.
+     */
+    public long streamByWhereParameter(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> action) {
+        long count = 0;
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
+        try (CloseableIterator<MemberTeamDto> rows = memberSearchQueryBuilder
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ), condition)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .iterate()) { // fetch()와 달리 ScrollableResults(서버 커서)로 조금씩 읽어온다.
+
+            while (rows.hasNext()) {
+                action.accept(rows.next());
+                if (++count % fetchSize == 0) {
+                    em.clear();
+                }
+            }
+        }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+        return count;
     }
 
 }
@@ -0,0 +1,529 @@
+package koo.basicquerydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.entity.QTeam;
+import koo.basicquerydsl.entity.QTombstone;
+import koo.basicquerydsl.entity.Tombstone;
+import koo.basicquerydsl.repository.support.CommittedEntityProjection;
+import koo.basicquerydsl.repository.support.DataChangeTracker;
+import koo.basicquerydsl.repository.support.MemberSnapshot;
+import koo.basicquerydsl.repository.support.MemberState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * searchByWhereParameter(/v1/members)의 MemberTeamDto 행을 메모리에 들고 있다가 DB 없이 검색한다. (member.read-model.enabled: true 일 때만)
+ * - 회원 한 명당 MemberState 하나를 id, username, 팀, 나이(정렬) 인덱스에 넣어 두고, 팀 이름은 조회할 때 붙인다. (팀 이름 변경은 맵 하나만 바꾼다.)
+ * - 검색 조건 중 가장 좁은 인덱스(username > username 접두사 > teamName > 나이 범위)로 후보를 고르고 나머지 조건은 후보에서 거른다. 결과는 회원 id 순서
+ *   (username 인덱스는 정렬돼 있어서 접두사는 DB와 같은 범위 조회, 대소문자 무시는 소문자 username 인덱스를 쓴다.)
+ * - 커밋된 Member/Team 변경(changeTeam 포함)으로 바로 갱신하고, 벌크 연산 후와 주기적으로 DB에서 다시 만든다. (CommittedEntityProjection)
+ * - consistency
+ *   - STRICT: 커밋되지 않은 member/team 변경이 있거나(자기 트랜잭션 포함) 재구성을 기다리는 중이면 DB에서 읽는다. 커밋된 변경은 커밋이 끝나기 전에 반영되므로 항상 최신이다.
+ *   - EVENTUAL: 만들어진 뒤에는 항상 메모리에서 읽는다. 벌크 연산 직후에는 재구성이 끝날 때까지 이전 값이 보일 수 있다.
+ * - rebuild-on-startup: true면 애플리케이션이 요청을 받기 전에 다 만든다. false면 백그라운드에서 만들고, 그 전까지는 DB에서 읽는다.
+ * - snapshot.path를 지정하면 DB에서 다시 만들 때마다, 그리고 종료할 때 파일 스냅샷(MemberSnapshot)을 남긴다.
+ *   재시작하면 스냅샷의 모든 행을 MemberState로 읽어서 인덱스를 다시 채우고(DB 전체 조회 대신 파일을 한 번 디코딩, 회원 수에 비례),
+ *   스냅샷의 change_seq 이후에 insert/update 된 회원, 팀(Member.changeSeq)과 삭제 기록(Tombstone)만 DB에서 더 읽는다.
+ *   - member, team의 change_seq 기본값/on update 절과 인덱스는 snapshot.path가 있을 때만 처음 만들기 전에 켠다. (enableChangeSeq)
+ *     꺼져 있으면(기본값) 쓰기마다 시퀀스 값을 받지 않고, 켜져 있어도 시작 전에 넣는 샘플 데이터(InitMember)는 받지 않는다.
+ *   - change_seq는 쓰는 트랜잭션이 없을 때의 시퀀스 값만 남긴다. (그보다 작은 값을 받은 변경은 모두 커밋돼서 메모리에 반영됐다.) 쓰는 중이면 이전 값을 남긴다.
+ *   - 삭제 기록은 snapshot.path가 있을 때만 커밋된 삭제 이벤트로 남기고, 스냅샷을 쓴 뒤 그 이전 기록은 지운다.
+ *   - 벌크 delete는 삭제 기록이 없으므로 회원/팀 수가 DB와 다르면 DB와 맞추는 재구성이 끝날 때까지 stale 상태다. (EVENTUAL이면 그동안에도 메모리에서 읽는다.)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "member.read-model", name = "enabled", havingValue = "true")
+public class MemberReadModel extends CommittedEntityProjection<MemberReadModel.Rows> {
+
+    public enum Consistency {
+        STRICT,
+        EVENTUAL
+    }
+
+    private static final String[] TABLES = {DataChangeTracker.MEMBER, DataChangeTracker.TEAM};
+
+    private final JPAQueryFactory queryFactory;
+    private final DataChangeTracker dataChangeTracker;
+    private final Consistency consistency;
+    private final Path snapshotPath;
+    private final DataSource dataSource;
+    private volatile long snapshotChangeSeq = MemberSnapshot.UNKNOWN_CHANGE_SEQ; // 마지막으로 확인한, 쓰는 트랜잭션이 없을 때의 change_seq
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder fallbackCount = new LongAdder();
+    private final QMember member = QMember.member;
+    private final QTeam team = QTeam.team;
+    private final QTombstone tombstone = QTombstone.tombstone;
+
+    public MemberReadModel(EntityManager em, PlatformTransactionManager transactionManager, DataChangeTracker dataChangeTracker, DataSource dataSource,
+                           @Qualifier("projectionRebuildScheduler") TaskScheduler scheduler,
+                           @Value("${member.read-model.consistency:STRICT}") Consistency consistency,
+                           @Value("${member.read-model.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                           @Value("${member.read-model.reconcile-interval-ms:300000}") long reconcileIntervalMillis,
+                           @Value("${member.read-model.snapshot.path:}") String snapshotPath) {
+        super(transactionManager, dataChangeTracker, scheduler, reconcileIntervalMillis, rebuildOnStartup);
+        this.queryFactory = new JPAQueryFactory(em);
+        this.dataChangeTracker = dataChangeTracker;
+        this.consistency = consistency;
+        this.snapshotPath = StringUtils.hasText(snapshotPath) ? Paths.get(snapshotPath) : null;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * 메모리에서 검색할 수 없으면 빈 Optional (호출한 쪽에서 DB로 검색한다.)
+     * - 반환하는 MemberTeamDto는 매번 새로 만들므로 호출한 쪽에서 수정해도 된다.
+     */
+    public Optional<List<MemberTeamDto>> search(MemberSearchCondition condition) {
+        if (!isReady() || (consistency == Consistency.STRICT && (isStale() || dataChangeTracker.isWriting(TABLES)))) {
+            fallbackCount.increment();
+            return Optional.empty();
+        }
+
+        hitCount.increment();
+        return Optional.of(read(rows -> rows.search(condition)));
+    }
+
+    public Consistency getConsistency() {
+        return consistency;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getFallbackCount() {
+        return fallbackCount.sum();
+    }
+
+    @Override
+    public void memberSaved(MemberState before, MemberState after) {
+        apply(rows -> (before == null || rows.remove(before)) && rows.add(after));
+    }
+
+    @Override
+    public void memberDeleted(MemberState before) {
+        apply(rows -> rows.remove(before));
+        writeTombstone(DataChangeTracker.MEMBER, before.getMemberId());
+    }
+
+    @Override
+    public void teamSaved(Long teamId, String name) {
+        apply(rows -> {
+            rows.putTeam(teamId, name);
+            return true;
+        });
+    }
+
+    @Override
+    public void teamDeleted(Long teamId) {
+        apply(rows -> rows.removeTeam(teamId));
+        writeTombstone(DataChangeTracker.TEAM, teamId);
+    }
+
+    @Override
+    protected Rows load() {
+        Rows loaded = new Rows();
+
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .fetch();
+        for (Tuple row : teams) {
+            loaded.putTeam(row.get(team.id), row.get(team.name));
+        }
+
+        List<MemberState> members = queryFactory
+                .select(Projections.constructor(MemberState.class, member.id, member.username, member.age, member.team.id)) // member.team.id는 외래 키 컬럼이라 조인하지 않는다.
+                .from(member)
+                .fetch();
+        for (MemberState state : members) {
+            loaded.add(state);
+        }
+
+        return loaded;
+    }
+
+    @Override
+    protected WarmStart<Rows> loadWarm() {
+        if (snapshotPath == null) {
+            return null;
+        }
+        boolean wasEnabled;
+        try {
+            wasEnabled = enableChangeSeq();
+        } catch (SQLException e) {
+            log.warn("change_seq를 켜지 못해 스냅샷을 쓰지 않고 DB에서 만든다.", e);
+            return null;
+        }
+        if (!Files.exists(snapshotPath)) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        MemberSnapshot snapshot = MemberSnapshot.map(snapshotPath);
+        Rows loaded = Rows.of(snapshot);
+
+        long since = wasEnabled ? snapshot.getChangeSeq() : MemberSnapshot.UNKNOWN_CHANGE_SEQ; // 이번에 켰으면 그 전의 변경은 change_seq로 찾을 수 없다.
+        if (since == MemberSnapshot.UNKNOWN_CHANGE_SEQ) {
+            log.info("회원 스냅샷으로 읽기 모델 시작: 스냅샷 {}명, 스냅샷 이후 변경을 알 수 없어 DB에서 다시 만든다. (스냅샷 시각 {})",
+                    snapshot.memberCount(), Instant.ofEpochMilli(snapshot.getCreatedAtMillis()));
+            return new WarmStart<>(loaded, false);
+        }
+        snapshotChangeSeq = since;
+
+        boolean consistent = true;
+        List<Tuple> changedTeams = queryFactory // 스냅샷 이후에 insert/update 된 팀, 회원
+                .select(team.id, team.name)
+                .from(team)
+                .where(team.changeSeq.gt(since))
+                .fetch();
+        for (Tuple row : changedTeams) {
+            loaded.putTeam(row.get(team.id), row.get(team.name));
+        }
+        List<MemberState> changedMembers = queryFactory
+                .select(Projections.constructor(MemberState.class, member.id, member.username, member.age, member.team.id))
+                .from(member)
+                .where(member.changeSeq.gt(since))
+                .fetch();
+        for (MemberState state : changedMembers) {
+            loaded.removeMember(state.getMemberId());
+            consistent &= loaded.add(state);
+        }
+
+        List<Tuple> deleted = queryFactory // 스냅샷 이후에 삭제된 회원, 팀 (회원을 먼저 지워야 팀이 비어 있다.)
+                .select(tombstone.tableName, tombstone.rowId)
+                .from(tombstone)
+                .where(tombstone.id.gt(since))
+                .fetch();
+        for (Tuple row : deleted) {
+            if (DataChangeTracker.MEMBER.equals(row.get(tombstone.tableName))) {
+                loaded.removeMember(row.get(tombstone.rowId));
+            }
+        }
+        for (Tuple row : deleted) {
+            if (DataChangeTracker.TEAM.equals(row.get(tombstone.tableName))) {
+                consistent &= loaded.removeTeam(row.get(tombstone.rowId));
+            }
+        }
+
+        long members = queryFactory.select(member.count()).from(member).fetchOne(); // 삭제 기록이 없는 삭제(벌크 delete 등)가 있으면 수가 다르다.
+        long teams = queryFactory.select(team.count()).from(team).fetchOne();
+        boolean caughtUp = consistent && loaded.byId.size() == members && loaded.teamNames.size() == teams;
+
+        log.info("회원 스냅샷으로 읽기 모델 시작: 스냅샷 {}명 + DB 변경 {}명, 삭제 {}건, {}ms, DB와 일치 {} (스냅샷 시각 {})", snapshot.memberCount(),
+                changedMembers.size(), deleted.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), caughtUp,
+                Instant.ofEpochMilli(snapshot.getCreatedAtMillis()));
+        return new WarmStart<>(loaded, caughtUp);
+    }
+
+    /**
+     * member, team의 change_seq에 기본값(insert)과 on update 절(시퀀스의 다음 값)을 걸고 member(change_seq) 인덱스를 만든다.
+     * - 이미 걸려 있으면(이전 실행에서 켠 DB) true, 이번에 켰으면 false
+     * - 스키마 생성(ddl-auto)과 샘플 데이터는 ApplicationReadyEvent 전에 끝나므로 그 뒤에 켠다.
+     */
+    private boolean enableChangeSeq() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("select count(*) from information_schema.columns"
+                    + " where table_name in ('MEMBER', 'TEAM') and column_name = 'CHANGE_SEQ' and coalesce(column_default, '') <> ''")) {
+                if (rs.next() && rs.getInt(1) == TABLES.length) {
+                    return true;
+                }
+            }
+            for (String table : TABLES) {
+                statement.execute("alter table " + table + " alter column change_seq set default next value for " + Tombstone.CHANGE_SEQ);
+                statement.execute("alter table " + table + " alter column change_seq set on update next value for " + Tombstone.CHANGE_SEQ);
+            }
+            statement.execute("create index if not exists idx_member_change_seq on member(change_seq)"); // 스냅샷 이후의 변경
+        }
+        log.info("읽기 모델 스냅샷용 change_seq 켬 (member, team)");
+        return false;
+    }
+
+    @Override
+    protected void rebuilt() {
+        writeSnapshot();
+    }
+
+    @PreDestroy
+    public void writeSnapshot() { // 종료할 때는 마지막 재구성 이후에 반영한 변경까지 남긴다.
+        if (snapshotPath == null || !isReady()) {
+            return;
+        }
+
+        long changeSeq = snapshotChangeSeq(); // 메모리를 복사하기 전에
+        List<MemberState> members = new ArrayList<>();
+        Map<Long, String> teams = new HashMap<>();
+        read(rows -> { // 복사만 락 안에서, 파일 쓰기는 락 밖에서
+            members.addAll(rows.byId.values());
+            teams.putAll(rows.teamNames);
+            return null;
+        });
+
+        try {
+            MemberSnapshot.write(snapshotPath, members, teams, changeSeq);
+        } catch (RuntimeException e) {
+            log.warn("회원 스냅샷 저장 실패 path={}", snapshotPath, e);
+            return;
+        }
+        deleteTombstones(changeSeq);
+    }
+
+    /**
+     * 지금 시퀀스 값을 읽은 뒤 쓰는 트랜잭션이 없고 재구성 대기 중도 아니면, 그 값 이하를 받은 변경은 모두 커밋(또는 롤백)돼서 메모리에 반영됐다.
+     * 아니면 이전에 확인한 값을 쓴다. (더 작은 값은 시작할 때 더 많이 읽을 뿐 틀리지 않는다.)
+     * - 읽기 전에 change_seq를 켜 두므로(스키마를 다시 만들었어도) 이 값 이후의 변경은 모두 더 큰 값을 받는다.
+     */
+    private long snapshotChangeSeq() {
+        try {
+            enableChangeSeq();
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
+                         "select current_value from information_schema.sequences where sequence_name = '" + Tombstone.CHANGE_SEQ.toUpperCase(Locale.ROOT) + "'");
+                 ResultSet rs = statement.executeQuery()) {
+                if (rs.next() && !dataChangeTracker.isWriting(TABLES) && !isStale()) {
+                    snapshotChangeSeq = rs.getLong(1);
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("change_seq 조회 실패, 이전 값으로 스냅샷을 남긴다.", e);
+        }
+        return snapshotChangeSeq;
+    }
+
+    /**
+     * 커밋 후에 호출되므로 삭제한 트랜잭션과 따로 커밋한다. 남기지 못해도 시작할 때 회원/팀 수가 달라서 DB에서 다시 만든다.
+     */
+    private void writeTombstone(String table, Long id) {
+        if (snapshotPath == null) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "insert into tombstone (tombstone_id, table_name, row_id) values (next value for " + Tombstone.CHANGE_SEQ + ", ?, ?)")) {
+            statement.setString(1, table);
+            statement.setLong(2, id);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.warn("삭제 기록 저장 실패 table={}, id={}", table, id, e);
+        }
+    }
+
+    private void deleteTombstones(long changeSeq) { // 이 스냅샷에 이미 반영된 삭제 기록
+        if (changeSeq == MemberSnapshot.UNKNOWN_CHANGE_SEQ) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("delete from tombstone where tombstone_id <= ?")) {
+            statement.setLong(1, changeSeq);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.warn("삭제 기록 정리 실패", e);
+        }
+    }
+
+    static class Rows { // extends 절에서 쓰므로 private이 아니다.
+
+        private final NavigableMap<Long, MemberState> byId = new TreeMap<>();
+        private final NavigableMap<String, NavigableMap<Long, MemberState>> byUsername = new TreeMap<>(); // username이 null인 회원은 username 인덱스에 넣지 않는다.
+        private final NavigableMap<String, NavigableMap<Long, MemberState>> byUsernameLower = new TreeMap<>();
+        private final Map<Long, NavigableMap<Long, MemberState>> byTeam = new HashMap<>();
+        private final NavigableMap<Integer, NavigableMap<Long, MemberState>> byAge = new TreeMap<>();
+        private final Map<Long, String> teamNames = new HashMap<>();
+        private final Map<String, Long> teamIds = new HashMap<>();
+
+        /**
+         * 스냅샷의 모든 행을 MemberState로 읽어서 인덱스에 넣는다. (DB는 읽지 않지만 회원 수만큼 객체와 인덱스 항목을 만든다, MemberSnapshotLoadBenchmark)
+         */
+        static Rows of(MemberSnapshot snapshot) {
+            Rows rows = new Rows();
+            for (int j = 0; j < snapshot.teamCount(); j++) {
+                rows.putTeam(snapshot.teamIdAt(j), snapshot.teamName(j));
+            }
+            for (int i = 0; i < snapshot.memberCount(); i++) {
+                rows.add(snapshot.member(i));
+            }
+            return rows;
+        }
+
+        List<MemberTeamDto> search(MemberSearchCondition condition) {
+            boolean ignoreCase = condition.isIgnoreCase();
+            String username = key(condition.getUsername(), ignoreCase);
+            String prefix = key(condition.getUsernamePrefix(), ignoreCase);
+            String teamName = StringUtils.hasText(condition.getTeamName()) ? condition.getTeamName() : null;
+            Integer ageGoe = condition.getAgeGoe();
+            Integer ageLoe = condition.getAgeLoe();
+            NavigableMap<String, NavigableMap<Long, MemberState>> usernameIndex = ignoreCase ? byUsernameLower : byUsername;
+
+            Long teamId = null;
+            if (teamName != null) {
+                teamId = teamIds.get(teamName);
+                if (teamId == null) { // 없는 팀
+                    return new ArrayList<>();
+                }
+            }
+
+            Collection<MemberState> candidates;
+            boolean sortById = false;
+            if (username != null) {
+                candidates = usernameIndex.getOrDefault(username, Collections.emptyNavigableMap()).values();
+            } else if (prefix != null) {
+                candidates = flatten(usernameIndex.subMap(prefix, true, MemberSearchQueryBuilder.prefixUpperBound(prefix), false));
+                sortById = true;
+            } else if (teamId != null) {
+                candidates = byTeam.getOrDefault(teamId, Collections.emptyNavigableMap()).values();
+            } else if (ageGoe != null || ageLoe != null) {
+                candidates = ageRange(ageGoe, ageLoe);
+                sortById = true;
+            } else {
+                candidates = byId.values();
+            }
+
+            List<MemberTeamDto> result = new ArrayList<>();
+            for (MemberState row : candidates) {
+                String rowKey = row.getUsername() != null && (username != null || prefix != null) ? key(row.getUsername(), ignoreCase) : null;
+                if ((username == null || username.equals(rowKey))
+                        && (prefix == null || (rowKey != null && rowKey.startsWith(prefix)))
+                        && (teamId == null || teamId.equals(row.getTeamId()))
+                        && (ageGoe == null || row.getAge() >= ageGoe)
+                        && (ageLoe == null || row.getAge() <= ageLoe)) {
+                    result.add(toDto(row));
+                }
+            }
+            if (sortById) {
+                result.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+            }
+            return result;
+        }
+
+        private static String key(String username, boolean ignoreCase) { // 검색 조건과 같은 규칙 (빈 문자열은 조건 없음)
+            if (!StringUtils.hasText(username)) {
+                return null;
+            }
+            return ignoreCase ? MemberSearchQueryBuilder.lower(username) : username;
+        }
+
+        private static <K> List<MemberState> flatten(NavigableMap<K, NavigableMap<Long, MemberState>> range) {
+            List<MemberState> rows = new ArrayList<>();
+            for (NavigableMap<Long, MemberState> same : range.values()) {
+                rows.addAll(same.values());
+            }
+            return rows;
+        }
+
+        private List<MemberState> ageRange(Integer ageGoe, Integer ageLoe) {
+            if (ageGoe != null && ageLoe != null && ageGoe > ageLoe) {
+                return Collections.emptyList();
+            }
+
+            NavigableMap<Integer, NavigableMap<Long, MemberState>> range = byAge;
+            if (ageGoe != null) {
+                range = range.tailMap(ageGoe, true);
+            }
+            if (ageLoe != null) {
+                range = range.headMap(ageLoe, true);
+            }
+            return flatten(range);
+        }
+
+        private MemberTeamDto toDto(MemberState row) {
+            String teamName = row.getTeamId() != null ? teamNames.get(row.getTeamId()) : null;
+            return new MemberTeamDto(row.getMemberId(), row.getUsername(), row.getAge(), row.getTeamId(), teamName);
+        }
+
+        boolean add(MemberState row) { // 모르는 팀의 회원이면 false (팀 insert는 회원 insert보다 먼저 커밋 이벤트가 온다.)
+            byId.put(row.getMemberId(), row);
+            if (row.getUsername() != null) {
+                byUsername.computeIfAbsent(row.getUsername(), key -> new TreeMap<>()).put(row.getMemberId(), row);
+                byUsernameLower.computeIfAbsent(MemberSearchQueryBuilder.lower(row.getUsername()), key -> new TreeMap<>()).put(row.getMemberId(), row);
+            }
+            byAge.computeIfAbsent(row.getAge(), key -> new TreeMap<>()).put(row.getMemberId(), row);
+            if (row.getTeamId() != null) {
+                byTeam.computeIfAbsent(row.getTeamId(), key -> new TreeMap<>()).put(row.getMemberId(), row);
+                return teamNames.containsKey(row.getTeamId());
+            }
+            return true;
+        }
+
+        void removeMember(Long memberId) { // 이전 값을 모르는 변경, 삭제 (스냅샷 이후 변경을 반영할 때)
+            MemberState stored = byId.get(memberId);
+            if (stored != null) {
+                remove(stored);
+            }
+        }
+
+        boolean remove(MemberState before) { // 들고 있던 값이 before와 다르면 false
+            MemberState stored = byId.remove(before.getMemberId());
+            if (stored == null) {
+                return false;
+            }
+
+            if (stored.getUsername() != null) {
+                removeFrom(byUsername, stored.getUsername(), stored);
+                removeFrom(byUsernameLower, MemberSearchQueryBuilder.lower(stored.getUsername()), stored);
+            }
+            removeFrom(byAge, stored.getAge(), stored);
+            if (stored.getTeamId() != null) {
+                removeFrom(byTeam, stored.getTeamId(), stored);
+            }
+            return stored.equals(before);
+        }
+
+        void putTeam(Long teamId, String name) {
+            String previous = teamNames.put(teamId, name);
+            if (previous != null) { // 팀 이름 변경
+                teamIds.remove(previous);
+            }
+            if (name != null) {
+                teamIds.put(name, teamId);
+            }
+        }
+
+        boolean removeTeam(Long teamId) { // 회원이 남아 있으면 외래 키 때문에 삭제되지 않으므로 비어 있어야 한다.
+            String name = teamNames.remove(teamId);
+            if (name != null) {
+                teamIds.remove(name);
+            }
+            NavigableMap<Long, MemberState> members = byTeam.remove(teamId);
+            return members == null || members.isEmpty();
+        }
+
+        private static <K> void removeFrom(Map<K, NavigableMap<Long, MemberState>> index, K key, MemberState row) {
+            NavigableMap<Long, MemberState> rows = index.get(key);
+            if (rows != null) {
+                rows.remove(row.getMemberId());
+                if (rows.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+
+    }
+
+}
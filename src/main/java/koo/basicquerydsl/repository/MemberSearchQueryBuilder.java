@@ -0,0 +1,212 @@
+package koo.basicquerydsl.repository;
+
+import com.querydsl.core.types.*;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.entity.QTeam;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MemberSearchCondition으로 검색 쿼리를 만드는 빌더 (usernameEq, usernameStartsWith, teamNameEq, ageGoe, ageLoe)
+ * - select절과 where절에서 team을 실제로 참조할 때만 leftJoin(member.team, team)을 추가한다.
+ * - member -> team은 다대일이라 left join을 빼도 결과 건수가 바뀌지 않는다. 그래서 teamName 조건이 없으면 count 쿼리는 항상 조인 없이 나가고,
+ *   content도 member.team.id만 필요하면 (member 테이블의 team_id 컬럼) 조인하지 않는다.
+ * - where절에서 team을 참조하면 (team.name = ?) 팀이 없는 회원은 어차피 걸러지므로 inner join으로 바꾼다. left join은 조인 순서가 member -> team으로
+ *   고정되지만 inner join은 DB가 team(name)으로 팀을 먼저 찾고 member(team_id, age) 인덱스로 회원을 찾을 수 있다.
+ * - 접두사 검색은 username >= 'abc' and username < 'abd' 범위 조건으로 바꿔서 인덱스 range scan을 하게 한다. (like와 달리 접두사의 %, _를 이스케이프할 필요도 없다.)
+ * - 대소문자 무시(ignoreCase)는 lower(username) 대신 DB가 계산해서 저장한 username_lower 컬럼(인덱스 있음)과 소문자로 바꾼 값을 비교한다.
+ */
+@Slf4j
+@Component
+public class MemberSearchQueryBuilder {
+
+    private final JPAQueryFactory queryFactory;
+    private final QMember member = QMember.member;
+    private final QTeam team = QTeam.team;
+
+    private final AtomicLong teamJoinEliminatedCount = new AtomicLong();
+    private final AtomicLong teamJoinKeptCount = new AtomicLong();
+
+    public MemberSearchQueryBuilder(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    public <T> JPAQuery<T> select(Expression<T> projection, MemberSearchCondition condition, Predicate... extraPredicates) { // content 쿼리
+        Predicate[] where = where(condition, extraPredicates);
+        JPAQuery<T> query = queryFactory
+                .select(projection)
+                .from(member);
+        return joinTeamIfNeeded(query, projection, where).where(where);
+    }
+
+    public JPAQuery<Member> count(MemberSearchCondition condition, Predicate... extraPredicates) { // totalCount 쿼리, fetchCount()로 실행
+        Predicate[] where = where(condition, extraPredicates);
+        JPAQuery<Member> query = queryFactory
+                .select(member)
+                .from(member);
+        return joinTeamIfNeeded(query, null, where).where(where);
+    }
+
+    private Predicate[] where(MemberSearchCondition condition, Predicate... extraPredicates) { // null은 where절에서 무시되므로 빼고 모은다.
+        List<Predicate> predicates = new ArrayList<>(5 + extraPredicates.length);
+        addIfPresent(predicates, usernameEq(condition.getUsername(), condition.isIgnoreCase()));
+        addIfPresent(predicates, usernameStartsWith(condition.getUsernamePrefix(), condition.isIgnoreCase()));
+        addIfPresent(predicates, teamNameEq(condition.getTeamName()));
+        addIfPresent(predicates, ageGoe(condition.getAgeGoe()));
+        addIfPresent(predicates, ageLoe(condition.getAgeLoe()));
+        for (Predicate extra : extraPredicates) {
+            addIfPresent(predicates, extra);
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private void addIfPresent(List<Predicate> predicates, Predicate predicate) {
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+    }
+
+    private <T> JPAQuery<T> joinTeamIfNeeded(JPAQuery<T> query, Expression<?> projection, Predicate[] where) {
+        boolean filtered = Arrays.stream(where).anyMatch(this::referencesTeam);
+        boolean needed = filtered || (projection != null && referencesTeam(projection));
+
+        if (!needed) {
+            long eliminated = teamJoinEliminatedCount.incrementAndGet();
+            log.debug("team 조인 생략 (누적 {}건)", eliminated);
+            return query;
+        }
+
+        teamJoinKeptCount.incrementAndGet();
+        return filtered ? query.join(member.team, team) : query.leftJoin(member.team, team);
+    }
+
+    private boolean referencesTeam(Expression<?> expression) { // team 별칭에서 시작하는 경로가 있는지 (member.team.id는 member에서 시작하므로 해당 없음)
+        return Boolean.TRUE.equals(expression.accept(TeamPathFinder.INSTANCE, team));
+    }
+
+    public long getTeamJoinEliminatedCount() {
+        return teamJoinEliminatedCount.get();
+    }
+
+    public long getTeamJoinKeptCount() {
+        return teamJoinKeptCount.get();
+    }
+
+    private BooleanExpression usernameEq(String username, boolean ignoreCase) {
+        if (!StringUtils.hasText(username)) {
+            return null;
+        }
+        return ignoreCase ? member.usernameLower.eq(lower(username)) : member.username.eq(username);
+    }
+
+    private BooleanExpression usernameStartsWith(String prefix, boolean ignoreCase) { // username.startsWith(prefix)와 같은 결과
+        if (!StringUtils.hasText(prefix)) {
+            return null;
+        }
+        StringPath path = ignoreCase ? member.usernameLower : member.username;
+        String from = ignoreCase ? lower(prefix) : prefix;
+        return path.goe(from).and(path.lt(prefixUpperBound(from)));
+    }
+
+    static String lower(String value) { // username_lower 컬럼(H2 lower)과 같은 규칙, 로케일에 따라 바뀌지 않게 ROOT
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * prefix로 시작하는 문자열 s는 모두 prefix <= s < prefixUpperBound(prefix) 이고, 그 범위의 문자열은 모두 prefix로 시작한다.
+     * - 마지막 문자를 하나 올린다. 마지막 문자가 U+FFFF이면 떼고 그 앞 문자를 올린다.
+     * - U+FFFF(비문자)로만 된 접두사는 위쪽 경계가 없으므로 지원하지 않는다.
+     */
+    static String prefixUpperBound(String prefix) {
+        int end = prefix.length();
+        while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) {
+            end--;
+        }
+        if (end == 0) {
+            throw new InvalidSearchRequestException("usernamePrefix는 U+FFFF로만 이루어질 수 없습니다.");
+        }
+        return prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1);
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    private enum TeamPathFinder implements Visitor<Boolean, QTeam> {
+
+        INSTANCE;
+
+        @Override
+        public Boolean visit(Constant<?> expr, QTeam team) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(FactoryExpression<?> expr, QTeam team) {
+            return anyReferences(expr.getArgs(), team);
+        }
+
+        @Override
+        public Boolean visit(Operation<?> expr, QTeam team) {
+            return anyReferences(expr.getArgs(), team);
+        }
+
+        @Override
+        public Boolean visit(ParamExpression<?> expr, QTeam team) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(Path<?> expr, QTeam team) {
+            return team.equals(expr.getRoot());
+        }
+
+        @Override
+        public Boolean visit(SubQueryExpression<?> expr, QTeam team) { // 서브쿼리는 자체 from절을 가지므로 바깥 조인과 무관
+            return false;
+        }
+
+        @Override
+        public Boolean visit(TemplateExpression<?> expr, QTeam team) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression && Boolean.TRUE.equals(((Expression<?>) arg).accept(this, team))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Boolean anyReferences(List<Expression<?>> args, QTeam team) {
+            for (Expression<?> arg : args) {
+                if (Boolean.TRUE.equals(arg.accept(this, team))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+}
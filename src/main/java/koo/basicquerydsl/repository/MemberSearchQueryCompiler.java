@@ -0,0 +1,119 @@
+package koo.basicquerydsl.repository;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+/**
+ * MemberSearchCondition의 조건이 있고 없는 경우(username, usernamePrefix, teamName, ageGoe, ageLoe, ignoreCase)의 JPQL을 미리 만들어 두고, 요청마다 파라미터 값만 바인딩한다.
+ * - BooleanBuilder / BooleanExpression을 요청마다 새로 만들고 JPQL 문자열로 렌더링하는 비용이 없다.
+ * - 같은 조합이면 JPQL 문자열이 항상 같은 객체이므로 Hibernate의 QueryPlanCache에서 파싱 결과(plan)를 재사용한다.
+ * - 조건과 조인은 MemberSearchQueryBuilder와 같다. (username =, username 접두사 범위, team.name =, age >=, age <=, 빈 문자열은 조건 없음, team.name 조건이 있으면 inner join)
+ * - ignoreCase는 username이나 usernamePrefix가 있을 때만 켜진다. (그 외에는 의미가 없으므로 같은 템플릿을 쓴다.)
+ */
+@Component
+public class MemberSearchQueryCompiler {
+
+    static final int USERNAME = 1;
+    static final int TEAM_NAME = 1 << 1;
+    static final int AGE_GOE = 1 << 2;
+    static final int AGE_LOE = 1 << 3;
+    static final int USERNAME_PREFIX = 1 << 4;
+    static final int IGNORE_CASE = 1 << 5;
+
+    private static final String SELECT = "select new koo.basicquerydsl.dto.MemberTeamDto(m.id, m.username, m.age, t.id, t.name) from Member m";
+
+    private final EntityManager em;
+    private final String[] templates = new String[64]; // 인덱스 = 있는 필드의 비트 조합
+
+    public MemberSearchQueryCompiler(EntityManager em) {
+        this.em = em;
+        for (int fields = 0; fields < templates.length; fields++) {
+            templates[fields] = compile(fields);
+        }
+    }
+
+    public TypedQuery<MemberTeamDto> query(MemberSearchCondition condition) {
+        int fields = fields(condition);
+        TypedQuery<MemberTeamDto> query = em.createQuery(templates[fields], MemberTeamDto.class);
+
+        boolean ignoreCase = (fields & IGNORE_CASE) != 0;
+        if ((fields & USERNAME) != 0) {
+            query.setParameter("username", ignoreCase ? MemberSearchQueryBuilder.lower(condition.getUsername()) : condition.getUsername());
+        }
+        if ((fields & USERNAME_PREFIX) != 0) {
+            String prefix = ignoreCase ? MemberSearchQueryBuilder.lower(condition.getUsernamePrefix()) : condition.getUsernamePrefix();
+            query.setParameter("prefixFrom", prefix);
+            query.setParameter("prefixTo", MemberSearchQueryBuilder.prefixUpperBound(prefix));
+        }
+        if ((fields & TEAM_NAME) != 0) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        if ((fields & AGE_GOE) != 0) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if ((fields & AGE_LOE) != 0) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        return query;
+    }
+
+    static int fields(MemberSearchCondition condition) {
+        int fields = 0;
+        if (StringUtils.hasText(condition.getUsername())) {
+            fields |= USERNAME;
+        }
+        if (StringUtils.hasText(condition.getTeamName())) {
+            fields |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            fields |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            fields |= AGE_LOE;
+        }
+        if (StringUtils.hasText(condition.getUsernamePrefix())) {
+            fields |= USERNAME_PREFIX;
+        }
+        if (condition.isIgnoreCase() && (fields & (USERNAME | USERNAME_PREFIX)) != 0) {
+            fields |= IGNORE_CASE;
+        }
+        return fields;
+    }
+
+    String template(int fields) {
+        return templates[fields];
+    }
+
+    private static String compile(int fields) {
+        StringBuilder jpql = new StringBuilder(SELECT)
+                .append((fields & TEAM_NAME) != 0 ? " join m.team t" : " left join m.team t");
+        String username = (fields & IGNORE_CASE) != 0 ? "m.usernameLower" : "m.username";
+        String separator = " where ";
+        if ((fields & USERNAME) != 0) {
+            jpql.append(separator).append(username).append(" = :username");
+            separator = " and ";
+        }
+        if ((fields & USERNAME_PREFIX) != 0) {
+            jpql.append(separator).append(username).append(" >= :prefixFrom and ").append(username).append(" < :prefixTo");
+            separator = " and ";
+        }
+        if ((fields & TEAM_NAME) != 0) {
+            jpql.append(separator).append("t.name = :teamName");
+            separator = " and ";
+        }
+        if ((fields & AGE_GOE) != 0) {
+            jpql.append(separator).append("m.age >= :ageGoe");
+            separator = " and ";
+        }
+        if ((fields & AGE_LOE) != 0) {
+            jpql.append(separator).append("m.age <= :ageLoe");
+        }
+        return jpql.toString();
+    }
+
+}
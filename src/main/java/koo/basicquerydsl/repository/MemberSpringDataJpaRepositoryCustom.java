@@ -1,9 +1,11 @@
 package koo.basicquerydsl.repository;
 
+import koo.basicquerydsl.dto.MemberCursorPage;
 import koo.basicquerydsl.dto.MemberSearchCondition;
 import koo.basicquerydsl.dto.MemberTeamDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -12,6 +14,10 @@ public interface MemberSpringDataJpaRepositoryCustom { // Spring Data Jpa를 위
     List<MemberTeamDto> searchByWhereParameter(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable); // 단순 Spring Data Jpa 페이징
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable); // 데이터 내용과 totalCount를 구하는 것을 분리한 Spring Data Jpa 페이징
+    Page<MemberTeamDto> searchPageComplexParallel(MemberSearchCondition condition, Pageable pageable); // content 쿼리와 totalCount 쿼리를 동시에 실행하는 Spring Data Jpa 페이징
     Page<MemberTeamDto> searchPageComplex2(MemberSearchCondition condition, Pageable pageable); // 데이터 내용과 totalCount를 구하는 것을 분리한 Spring Data Jpa 페이징
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable); // totalCount 없이 다음 페이지 존재 여부만 구하는 Slice 페이징
+    MemberCursorPage searchByCursor(MemberSearchCondition condition, String cursor, int size); // offset 대신 member.id 기준 커서(keyset) 페이징
+    MemberCursorPage searchByCursor(MemberSearchCondition condition, MemberCursor.SortKey sortKey, String cursor, int size); // 정렬 키 + member.id 기준 커서(keyset) 페이징
 
 }
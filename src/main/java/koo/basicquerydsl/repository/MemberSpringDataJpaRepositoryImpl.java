@@ -1,94 +1,73 @@
 package koo.basicquerydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import koo.basicquerydsl.dto.MemberCursorPage;
 import koo.basicquerydsl.dto.MemberSearchCondition;
 import koo.basicquerydsl.dto.MemberTeamDto;
 import koo.basicquerydsl.dto.QMemberTeamDto;
-import koo.basicquerydsl.entity.Member;
 import koo.basicquerydsl.entity.QMember;
 import koo.basicquerydsl.entity.QTeam;
+import koo.basicquerydsl.repository.support.MemberCountCache;
+import koo.basicquerydsl.repository.support.ReadOnlyQueryExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.repository.support.PageableExecutionUtils;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 
+@Transactional(readOnly = true) // 조회 전용, 복제본 라우팅을 켜면 복제본에서 읽는다. (ReadReplicaConfig)
 public class MemberSpringDataJpaRepositoryImpl implements MemberSpringDataJpaRepositoryCustom { // Spring Data Jpa를 위한 사용자 정의 리포지토리 구현체
 
     private final JPAQueryFactory queryFactory;
     private final EntityManager em;
+    private final MemberSearchQueryBuilder memberSearchQueryBuilder;
+    private final MemberCountCache memberCountCache;
+    private final ReadOnlyQueryExecutor readOnlyQueryExecutor;
     private QMember member = QMember.member;
     private QTeam team = QTeam.team;
 
-    public MemberSpringDataJpaRepositoryImpl(EntityManager em) {
+    public MemberSpringDataJpaRepositoryImpl(EntityManager em, MemberSearchQueryBuilder memberSearchQueryBuilder,
+                                             MemberCountCache memberCountCache, ReadOnlyQueryExecutor readOnlyQueryExecutor) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.memberSearchQueryBuilder = memberSearchQueryBuilder;
+        this.memberCountCache = memberCountCache;
+        this.readOnlyQueryExecutor = readOnlyQueryExecutor;
     }
 
     @Override
     public List<MemberTeamDto> searchByWhereParameter(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        return memberSearchQueryBuilder
+                .select(memberTeamDto(), condition)
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    private QMemberTeamDto memberTeamDto() {
+        return new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName")
+        );
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) { // 단순 Spring Data Jpa 페이징
-        QueryResults<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        QueryResults<MemberTeamDto> results = memberSearchQueryBuilder
+                .select(memberTeamDto(), condition)
                 .offset(pageable.getOffset()) // 어디서 부터 시작할 것인가
                 .limit(pageable.getPageSize()) // 몇개 씩 가져올 것인가
-                .fetchResults();// fetchResults를 쓰면 content용 쿼리도 날리고 totalCount용 쿼리도 날린다.
+                .fetchResults();// fetchResults를 쓰면 content용 쿼리도 날리고 totalCount용 쿼리도 날린다. (totalCount 쿼리도 content 쿼리의 조인을 그대로 가져간다.)
 
         List<MemberTeamDto> content = results.getResults();
         long total = results.getTotal();
@@ -101,79 +80,141 @@ public class MemberSpringDataJpaRepositoryImpl implements MemberSpringDataJpaRep
      */
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) { // 데이터 내용과 totalCount를 구하는 것을 분리한 Spring Data Jpa 페이징
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        List<MemberTeamDto> content = memberSearchQueryBuilder
+                .select(memberTeamDto(), condition)
                 .offset(pageable.getOffset()) // 어디서 부터 시작할 것인가
                 .limit(pageable.getPageSize()) // 몇개 씩 가져올 것인가
                 .fetch();// 여기서 차이점 발생!, fetch()를 쓰면 content만 가져온다. (fetchResults를 쓰면 content용 쿼리도 날리고 totalCount용 쿼리도 날린다.)
 
-        long total = queryFactory // totalCount 구하는 쿼리 따로 작성하기
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
+        long total = memberSearchQueryBuilder // totalCount 구하는 쿼리 따로 작성하기 (teamName 조건이 없으면 team 조인 없이 나간다.)
+                .count(condition)
                 .fetchCount();
 
         return new PageImpl<>(content, pageable, total);
     }
 
+    /**
+     * searchPageComplex의 content 쿼리와 totalCount 쿼리를 각각 별도 커넥션(읽기 전용 트랜잭션)에서 동시에 실행한다.
+     * - 응답 시간이 두 쿼리 시간의 합이 아니라 느린 쪽 하나의 시간이 된다.
+     * - content 쿼리가 실패하면(스레드 풀이 가득 차서 거절된 경우 포함) 아직 실행 중이거나 대기 중인 count 쿼리는 취소한다.
+     * - 스레드 풀이 가득 차면 요청 스레드에서 대신 실행하지 않고 TaskRejectedException을 던진다. (QueryExecutorConfig)
+     * - 두 쿼리가 각자 트랜잭션을 여므로 호출 스레드는 트랜잭션(커넥션)을 잡지 않는다. (요청 하나가 커넥션 3개를 쓰지 않도록)
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<MemberTeamDto> searchPageComplexParallel(MemberSearchCondition condition, Pageable pageable) {
+        ReadOnlyQueryExecutor.QueryTask<Long> totalTask = readOnlyQueryExecutor.submit(() -> memberSearchQueryBuilder
+                .count(condition)
+                .fetchCount());
+
+        List<MemberTeamDto> content;
+        try {
+            content = readOnlyQueryExecutor.submit(() -> memberSearchQueryBuilder
+                    .select(memberTeamDto(), condition)
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .fetch())
+                    .get();
+        } catch (RuntimeException e) {
+            totalTask.cancel();
+            throw e;
+        }
+
+        return new PageImpl<>(content, pageable, totalTask.get());
+    }
+
     /**
      * totalCount 쿼리가 생략 가능한 경우 생략해서 처리하기 (최적화)
      * - 페이지 시작이면서 전체 컨텐츠 사이즈가 페이지 사이즈보다 작을 때
      * - 마지막 페이지 일때 (offset + 전체 컨텐츠 사이즈를 더해서 totalCount를 구함)
      * - 아래와 같은 경우 위의 경우를 자동으로 처리해줌(위의 경우일 때 totalCount를 구하는 쿼리를 호출하지 않는다.)
+     * - totalCount는 검색 조건별로 캐시해서 같은 조건으로 페이지만 넘길 때는 content 쿼리만 나간다. (MemberCountCache)
      */
     @Override
     public Page<MemberTeamDto> searchPageComplex2(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        List<MemberTeamDto> content = memberSearchQueryBuilder
+                .select(memberTeamDto(), condition)
                 .offset(pageable.getOffset()) // 어디서 부터 시작할 것인가
                 .limit(pageable.getPageSize()) // 몇개 씩 가져올 것인가
                 .fetch();// 여기서 차이점 발생!, fetch()를 쓰면 content만 가져온다. (fetchResults를 쓰면 content용 쿼리도 날리고 totalCount용 쿼리도 날린다.)
 
-        JPAQuery<Member> countQuery = queryFactory // totalCount 구하는 쿼리 따로 작성하기
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()));
-
-        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
+        return PageableExecutionUtils.getPage(content, pageable, () -> memberCountCache.get(condition, // totalCount 구하는 쿼리는 실제로 실행할 때만 만든다. (조인 생략 통계가 실행한 쿼리만 센다.)
+                () -> memberSearchQueryBuilder.count(condition).fetchCount()));
+    }
+
+    /**
+     * 무한 스크롤처럼 전체 개수가 필요 없는 경우 totalCount 쿼리를 아예 날리지 않는다.
+     * - pageSize + 1개를 조회해서 하나가 더 있으면 다음 페이지가 있는 것으로 판단한다.
+     */
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        int pageSize = pageable.getPageSize();
+
+        List<MemberTeamDto> rows = memberSearchQueryBuilder
+                .select(memberTeamDto(), condition)
+                .offset(pageable.getOffset())
+                .limit(pageSize + 1) // 한 개를 더 읽어서 다음 페이지가 있는지 확인
+                .fetch();
+
+        boolean hasNext = rows.size() > pageSize;
+        List<MemberTeamDto> content = hasNext ? rows.subList(0, pageSize) : rows;
+
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, String cursor, int size) {
+        return searchByCursor(condition, MemberCursor.SortKey.ID, cursor, size);
+    }
+
+    /**
+     * offset 대신 마지막으로 읽은 행 다음부터 읽는 keyset(seek) 페이징
+     * - offset은 앞 페이지의 행들을 모두 읽고 버리기 때문에 뒤 페이지로 갈수록 느려지지만, keyset은 where절로 시작 위치를 바로 찾아가므로 페이지 깊이와 무관하게 일정하다.
+     * - size + 1개를 조회해서 다음 페이지 존재 여부를 판단한다. (totalCount 쿼리 없음)
+     */
+    @Override
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, MemberCursor.SortKey sortKey, String cursor, int size) {
+        if (size < 1) {
+            throw new InvalidSearchRequestException("size는 1 이상이어야 합니다. size=" + size);
+        }
+
+        MemberCursor after = cursor != null ? MemberCursor.decode(cursor) : null;
+        if (after != null && after.getSortKey() != sortKey) {
+            throw new InvalidSearchRequestException("커서의 정렬 기준(" + after.getSortKey() + ")과 요청한 정렬 기준(" + sortKey + ")이 다릅니다.");
+        }
+
+        List<MemberTeamDto> rows = memberSearchQueryBuilder
+                .select(memberTeamDto(), condition, seekAfter(sortKey, after))
+                .orderBy(seekOrder(sortKey))
+                .limit(size + 1) // 한 개를 더 읽어서 다음 페이지가 있는지 확인
+                .fetch();
+
+        boolean hasNext = rows.size() > size;
+        List<MemberTeamDto> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? MemberCursor.after(sortKey, content.get(content.size() - 1)).encode() : null;
+
+        return new MemberCursorPage(content, nextCursor);
+    }
+
+    private BooleanExpression seekAfter(MemberCursor.SortKey sortKey, MemberCursor after) {
+        if (after == null) { // 첫 페이지
+            return null;
+        }
+
+        if (sortKey == MemberCursor.SortKey.AGE) { // (age, id) > (마지막 age, 마지막 id), age >= ?를 밖에 두어야 (age, member_id) 인덱스를 범위로 탄다. (or만 있으면 전체 스캔)
+            return member.age.goe(after.getAge())
+                    .and(member.age.gt(after.getAge()).or(member.id.gt(after.getMemberId())));
+        }
+
+        return member.id.gt(after.getMemberId());
+    }
+
+    private OrderSpecifier<?>[] seekOrder(MemberCursor.SortKey sortKey) { // where절의 seek 조건과 정렬 순서가 반드시 같아야 한다.
+        if (sortKey == MemberCursor.SortKey.AGE) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+
+        return new OrderSpecifier<?>[]{member.id.asc()};
     }
 
 }
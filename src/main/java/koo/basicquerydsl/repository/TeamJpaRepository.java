@@ -0,0 +1,31 @@
+package koo.basicquerydsl.repository;
+
+import koo.basicquerydsl.entity.Team;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+@Repository
+public class TeamJpaRepository {
+
+    private final EntityManager em;
+
+    public TeamJpaRepository(EntityManager em) {
+        this.em = em;
+    }
+
+    public Optional<Team> findById(Long id) { // 2차 캐시에 있으면 select 없이 반환
+        return Optional.ofNullable(em.find(Team.class, id));
+    }
+
+    @Transactional(readOnly = true) // 트랜잭션 밖에서 unwrap한 Session은 바로 닫히므로
+    public Optional<Team> findByName(String name) { // 팀 이름(@NaturalId)으로 조회, 이름 -> id도 2차 캐시(@NaturalIdCache)에서 찾는다.
+        return em.unwrap(Session.class)
+                .bySimpleNaturalId(Team.class)
+                .loadOptional(name);
+    }
+
+}
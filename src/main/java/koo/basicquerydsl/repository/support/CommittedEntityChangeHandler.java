@@ -0,0 +1,22 @@
+package koo.basicquerydsl.repository.support;
+
+import java.util.Set;
+
+/**
+ * 커밋된 Member, Team 변경을 받아서 메모리 구조(통계, 읽기 모델)를 갱신하는 쪽이 구현한다. (CommittedEntityChangeListener가 호출)
+ * - 커밋을 마친 스레드에서 호출되므로 빠르게 끝내야 하고, DB를 조회하면 안 된다.
+ * - 이전 값을 알 수 없는 변경(벌크 연산 등)은 resync로 알리므로 DB에서 다시 만든다.
+ */
+public interface CommittedEntityChangeHandler {
+
+    void memberSaved(MemberState before, MemberState after); // insert면 before가 null
+
+    void memberDeleted(MemberState before);
+
+    void teamSaved(Long teamId, String name);
+
+    void teamDeleted(Long teamId);
+
+    void resync(Set<String> tables);
+
+}
@@ -0,0 +1,131 @@
+package koo.basicquerydsl.repository.support;
+
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.Team;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.tuple.entity.EntityMetamodel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 커밋된 Member, Team의 insert/update/delete를 CommittedEntityChangeHandler들에 전달한다.
+ * - EntityChangeEventListener와 달리 커밋이 끝난 뒤에만 호출되고, 롤백된 변경은 오지 않는다.
+ * - 핸들러가 없거나 Member, Team이 아닌 엔티티(Tombstone 등)는 post-commit 처리를 요청하지 않는다. (요청하면 Hibernate가 커밋 때까지 엔티티 액션을 붙잡고 있는다.)
+ * - 벌크 연산은 엔티티 이벤트가 없으므로 DataChangeTracker의 벌크 변경 알림을 받아 resync로 전달한다.
+ */
+@Slf4j
+@Component
+public class CommittedEntityChangeListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final List<CommittedEntityChangeHandler> handlers;
+
+    public CommittedEntityChangeListener(ObjectProvider<CommittedEntityChangeHandler> handlers, DataChangeTracker dataChangeTracker) {
+        this.handlers = handlers.orderedStream().collect(Collectors.toList()); // 핸들러가 하나도 없을 수 있다.
+        dataChangeTracker.addBulkChangeListener(this::resync);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            MemberState after = memberState(event.getId(), event.getState(), event.getPersister());
+            dispatch(handler -> handler.memberSaved(null, after));
+        } else if (event.getEntity() instanceof Team) {
+            teamSaved(event.getId(), event.getState(), event.getPersister());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            if (event.getOldState() == null) { // 변경 전 스냅샷이 없는 갱신 (Session.update로 다시 붙인 준영속 엔티티 등)
+                resync(Collections.singleton(DataChangeTracker.MEMBER));
+                return;
+            }
+            MemberState before = memberState(event.getId(), event.getOldState(), event.getPersister());
+            MemberState after = memberState(event.getId(), event.getState(), event.getPersister());
+            dispatch(handler -> handler.memberSaved(before, after));
+        } else if (event.getEntity() instanceof Team) {
+            teamSaved(event.getId(), event.getState(), event.getPersister());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            MemberState before = memberState(event.getId(), event.getDeletedState(), event.getPersister());
+            dispatch(handler -> handler.memberDeleted(before));
+        } else if (event.getEntity() instanceof Team) {
+            Long teamId = (Long) event.getId();
+            dispatch(handler -> handler.teamDeleted(teamId));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) { // 롤백된 변경은 반영하지 않는다.
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) { // SQL 실행 직후가 아니라 커밋 후에 받는다.
+        Class<?> entityClass = persister.getMappedClass();
+        return !handlers.isEmpty() && (entityClass == Member.class || entityClass == Team.class);
+    }
+
+    private void teamSaved(Object id, Object[] state, EntityPersister persister) {
+        String name = (String) state[persister.getEntityMetamodel().getPropertyIndex("name")];
+        dispatch(handler -> handler.teamSaved((Long) id, name));
+    }
+
+    private void resync(Set<String> tables) {
+        if (tables.contains(DataChangeTracker.MEMBER) || tables.contains(DataChangeTracker.TEAM)) {
+            dispatch(handler -> handler.resync(tables));
+        }
+    }
+
+    private void dispatch(Consumer<CommittedEntityChangeHandler> event) { // 이미 커밋이 끝났으므로 핸들러 예외를 호출한 쪽으로 던지지 않는다.
+        for (CommittedEntityChangeHandler handler : handlers) {
+            try {
+                event.accept(handler);
+            } catch (RuntimeException e) {
+                log.warn("커밋된 변경 반영 실패, DB에서 다시 만든다. handler={}", handler.getClass().getSimpleName(), e);
+                handler.resync(Collections.singleton(DataChangeTracker.MEMBER));
+            }
+        }
+    }
+
+    private static MemberState memberState(Object id, Object[] state, EntityPersister persister) {
+        EntityMetamodel metamodel = persister.getEntityMetamodel();
+        return new MemberState(
+                (Long) id,
+                (String) state[metamodel.getPropertyIndex("username")],
+                (Integer) state[metamodel.getPropertyIndex("age")],
+                teamId(state[metamodel.getPropertyIndex("team")]));
+    }
+
+    private static Long teamId(Object team) { // 지연 로딩 프록시는 초기화하지 않고 id만 꺼낸다.
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+}
@@ -0,0 +1,217 @@
+package koo.basicquerydsl.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * DB 데이터를 메모리 구조(S)로 들고 있으면서 커밋된 엔티티 변경으로 갱신하는 구조의 공통 부분 (TeamAgeStatistics, MemberReadModel)
+ * - 조회는 읽기 락, 변경 반영은 쓰기 락에서 한다.
+ * - 벌크 연산, 이전 값을 모르는 변경, 반영 중 어긋남이 발견되면 DB에서 다시 만든다. (projectionRebuildScheduler에서 실행)
+ * - 주기적으로(reconcileIntervalMillis) DB에서 다시 만들어서 놓친 변경이 있어도 오래 틀리지 않게 한다.
+ * - 다시 만드는 중에 커밋된 변경이 있으면 읽은 결과에 포함됐는지 알 수 없으므로 다시 읽는다. (MAX_REBUILD_ATTEMPTS번까지, 그래도 바뀌면 한 번 더 예약)
+ *   읽기 전후에 member, team을 쓰는 트랜잭션이 있었어도 다시 읽는다. DB 커밋은 끝났지만 커밋 후 이벤트가 아직 오지 않은 변경을 읽었다면,
+ *   설치한 뒤에 그 이벤트가 한 번 더 반영된다. (DataChangeTracker의 writing 상태는 커밋 후 이벤트가 다 반영된 뒤에 풀린다.)
+ */
+@Slf4j
+public abstract class CommittedEntityProjection<S> implements CommittedEntityChangeHandler {
+
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final TransactionTemplate transactionTemplate;
+    private final DataChangeTracker dataChangeTracker;
+    private final TaskScheduler scheduler;
+    private final long reconcileIntervalMillis;
+    private final boolean rebuildOnStartup;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+    private final AtomicLong changes = new AtomicLong(); // 반영한 커밋 변경 수, 재구성 중에 변경이 있었는지 확인한다.
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicLong staleMarks = new AtomicLong(); // 재구성을 요청한 횟수
+    private volatile long rebuiltMarks; // 마지막 재구성이 반영한 요청 수
+    private volatile S snapshot;
+
+    protected CommittedEntityProjection(PlatformTransactionManager transactionManager, DataChangeTracker dataChangeTracker, TaskScheduler scheduler,
+                                        long reconcileIntervalMillis, boolean rebuildOnStartup) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager); // 읽기 전용이면 복제본으로 갈 수 있으므로(ReadReplicaConfig) 원본에서 읽는다.
+        this.dataChangeTracker = dataChangeTracker;
+        this.scheduler = scheduler;
+        this.reconcileIntervalMillis = reconcileIntervalMillis;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    protected abstract S load(); // 트랜잭션 안에서 호출된다.
+
+    protected WarmStart<S> loadWarm() { // DB 전체를 읽지 않고 빠르게 만들 수 있으면 (파일 스냅샷 등) 트랜잭션 안에서 호출된다. DB와 다 맞추지 못했으면 재구성을 바로 예약한다.
+        return null;
+    }
+
+    protected void rebuilt() { // DB에서 다시 만든 직후 (락 밖, 재구성 스레드)
+    }
+
+    @EventListener(ApplicationReadyEvent.class) // 샘플 데이터(InitMember)까지 들어간 뒤에 처음 만든다.
+    public void start() {
+        if (installWarm()) { // 요청은 바로 받고, DB와 다 맞추지 못했으면 재구성은 백그라운드에서
+            scheduler.scheduleWithFixedDelay(this::rebuild, new Date(System.currentTimeMillis() + reconcileIntervalMillis), reconcileIntervalMillis);
+        } else if (rebuildOnStartup) { // 요청을 받기 전에 다 만들어 둔다.
+            rebuild();
+            scheduler.scheduleWithFixedDelay(this::rebuild, new Date(System.currentTimeMillis() + reconcileIntervalMillis), reconcileIntervalMillis);
+        } else {
+            scheduler.scheduleWithFixedDelay(this::rebuild, reconcileIntervalMillis);
+        }
+    }
+
+    private boolean installWarm() {
+        long seen = changes.get();
+        boolean writingBefore = isWriting();
+        WarmStart<S> warm;
+        try {
+            warm = transactionTemplate.execute(status -> loadWarm());
+        } catch (RuntimeException e) {
+            log.warn("{} 빠른 시작 실패, DB에서 만든다.", getClass().getSimpleName(), e);
+            return false;
+        }
+        if (warm == null) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (snapshot != null) { // 그 사이에 재구성이 끝났다.
+                return true;
+            }
+            if (!warm.caughtUp || changes.get() != seen || writingBefore || isWriting()) { // 읽는 동안 커밋된 변경은 아직 만들기 전이라 반영되지 않았다. (또는 이벤트가 한 번 더 온다.)
+                scheduleRebuild(); // 설치하기 전에 stale로 표시해서 STRICT 조회가 뒤처진 상태를 읽지 않게 한다.
+            }
+            snapshot = warm.state;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public boolean isStale() { // 재구성 요청 후 아직 다시 만들지 못했으면 메모리 상태가 DB보다 뒤처져 있다. (벌크 연산 직후 등)
+        return staleMarks.get() != rebuiltMarks;
+    }
+
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            rebuildWithRetry();
+            rebuilt();
+        }
+    }
+
+    private void rebuildWithRetry() {
+        for (int attempt = 1; attempt <= MAX_REBUILD_ATTEMPTS; attempt++) {
+            long seen = changes.get();
+            long marks = staleMarks.get();
+            boolean writingBefore = isWriting();
+            S loaded = transactionTemplate.execute(status -> load());
+
+            lock.writeLock().lock();
+            try {
+                boolean settled = changes.get() == seen && !writingBefore && !isWriting(); // 읽는 동안 커밋된 변경도, 커밋 후 이벤트를 기다리는 변경도 없었다.
+                if (settled || attempt == MAX_REBUILD_ATTEMPTS) {
+                    snapshot = loaded;
+                    rebuiltMarks = marks;
+                    if (!settled) {
+                        log.info("{} 재구성 중 변경이 계속 들어와서 다시 예약한다.", getClass().getSimpleName());
+                        scheduleRebuild();
+                    }
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private boolean isWriting() {
+        return dataChangeTracker.isWriting(DataChangeTracker.MEMBER, DataChangeTracker.TEAM);
+    }
+
+    @Override
+    public void resync(Set<String> tables) {
+        scheduleRebuild();
+    }
+
+    protected <R> R read(Function<S, R> query) {
+        lock.readLock().lock();
+        try {
+            S current = snapshot;
+            if (current == null) {
+                throw new IllegalStateException(getClass().getSimpleName() + "가 아직 만들어지지 않았습니다. isReady()를 먼저 확인하세요.");
+            }
+            return query.apply(current);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    protected void apply(Predicate<S> change) { // change가 false를 돌려주면 메모리 상태가 DB와 어긋났다.
+        lock.writeLock().lock();
+        try {
+            changes.incrementAndGet();
+            S current = snapshot;
+            if (current == null) { // 아직 처음 만들기 전이면 그때 DB에서 읽는다.
+                return;
+            }
+            if (!change.test(current)) {
+                log.warn("{}가 DB와 어긋나서 다시 만든다.", getClass().getSimpleName());
+                scheduleRebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void scheduleRebuild() { // 여러 번 요청돼도 대기 중인 재구성은 하나
+        staleMarks.incrementAndGet();
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                rebuildScheduled.set(false); // 재구성 중에 들어온 요청은 다음 재구성으로 예약된다.
+                rebuild();
+            }, new Date());
+        }
+    }
+
+    /**
+     * loadWarm 결과
+     * - caughtUp: DB의 현재 상태까지 다 반영했다. (false면 설치와 함께 재구성을 예약하고, 끝날 때까지 stale)
+     */
+    public static final class WarmStart<S> {
+
+        private final S state;
+        private final boolean caughtUp;
+
+        public WarmStart(S state, boolean caughtUp) {
+            this.state = state;
+            this.caughtUp = caughtUp;
+        }
+
+        public S getState() {
+            return state;
+        }
+
+        public boolean isCaughtUp() {
+            return caughtUp;
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package koo.basicquerydsl.repository.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Hibernate가 실행하는 모든 SQL을 보고 insert/update/delete 대상 테이블을 DataChangeTracker에 알린다.
+ * - em.persist, 변경 감지뿐 아니라 queryFactory.update/delete(...).execute() 같은 벌크 연산도 SQL은 반드시 이곳을 거친다.
+ * - 엔티티 이벤트 구간(EntityChangeEventListener) 밖에서 준비된 DML은 벌크 연산으로 알린다.
+ */
+@Component
+public class DataChangeStatementInspector implements StatementInspector {
+
+    private final DataChangeTracker dataChangeTracker;
+
+    public DataChangeStatementInspector(DataChangeTracker dataChangeTracker) {
+        this.dataChangeTracker = dataChangeTracker;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        String table = writtenTable(sql);
+        if (table != null) {
+            if (dataChangeTracker.isInEntityAction()) {
+                dataChangeTracker.onWrite(table);
+            } else {
+                dataChangeTracker.onBulkWrite(table);
+            }
+        }
+        return sql;
+    }
+
+    static String writtenTable(String sql) { // DML이 아니면 null
+        String statement = stripLeadingComments(sql).toLowerCase(Locale.ROOT);
+
+        if (statement.startsWith("insert into ")) {
+            return firstToken(statement, "insert into ".length());
+        }
+        if (statement.startsWith("update ")) {
+            return firstToken(statement, "update ".length());
+        }
+        if (statement.startsWith("delete from ")) {
+            return firstToken(statement, "delete from ".length());
+        }
+        return null;
+    }
+
+    private static String stripLeadingComments(String sql) { // use_sql_comments: true 이면 SQL 앞에 /* JPQL */ 주석이 붙는다.
+        String statement = sql.trim();
+        while (statement.startsWith("/*")) {
+            int end = statement.indexOf("*/");
+            if (end < 0) {
+                return "";
+            }
+            statement = statement.substring(end + 2).trim();
+        }
+        return statement;
+    }
+
+    private static String firstToken(String statement, int from) {
+        String rest = statement.substring(from).trim();
+        int end = 0;
+        while (end < rest.length() && !Character.isWhitespace(rest.charAt(end)) && rest.charAt(end) != '(') {
+            end++;
+        }
+        return end > 0 ? rest.substring(0, end) : null;
+    }
+
+}
@@ -0,0 +1,210 @@
+package koo.basicquerydsl.repository.support;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 테이블별 데이터 버전 관리 (캐시 무효화용)
+ * - insert/update/delete SQL이 나갈 때와 그 트랜잭션이 끝날 때(커밋/롤백) 버전을 올린다.
+ * - 트랜잭션이 진행 중인 동안에는 writing 상태가 되어 캐시가 값을 돌려주지도, 저장하지도 않는다.
+ *   (커밋 직후 afterCompletion 전까지의 짧은 순간에도 이전 데이터를 돌려주지 않기 위함)
+ * - 엔티티 이벤트 없이 실행된 DML(벌크 연산)은 따로 모아서 커밋 후에 알린다. 엔티티 이벤트로 메모리 구조를 갱신하는 쪽은 이때 DB에서 다시 만든다.
+ *   (엔티티의 insert/update/delete SQL은 EntityChangeEventListener가 표시한 구간 안에서만 준비된다.)
+ * - 팀 이름별 버전도 같은 방식으로 관리한다. (teamName 조건 검색의 ETag) 어느 팀이 바뀌었는지 모르는 변경(벌크 연산 등)은 ALL_TEAMS 버전을 올려 모든 팀을 바뀐 것으로 본다.
+ */
+@Component
+public class DataChangeTracker {
+
+    public static final String MEMBER = "member";
+    public static final String TEAM = "team";
+    public static final String ALL_TEAMS = "*";
+
+    private final ConcurrentMap<String, TableState> tables = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TableState> teams = new ConcurrentHashMap<>(); // 팀 이름 -> 버전 (쓰기가 있었던 팀만)
+    private final List<Consumer<Set<String>>> changeListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<Set<String>>> bulkChangeListeners = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<int[]> entityActionDepth = ThreadLocal.withInitial(() -> new int[1]);
+
+    public void onWrite(String table) {
+        TableState state = state(table);
+        state.version.incrementAndGet();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) { // 트랜잭션 밖에서 실행된 경우 (auto commit)
+            notifyChanged(Collections.singleton(table));
+            return;
+        }
+
+        if (pendingChanges().tables.add(table)) { // 이 트랜잭션에서 처음 변경된 테이블
+            state.writers.incrementAndGet();
+        }
+    }
+
+    public void onBulkWrite(String table) { // 엔티티 이벤트 없이 실행된 DML
+        onWrite(table);
+        if (MEMBER.equals(table) || TEAM.equals(table)) { // 어느 팀의 회원이 바뀌었는지 알 수 없다.
+            onTeamWrite(ALL_TEAMS);
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notifyBulkChanged(Collections.singleton(table));
+            return;
+        }
+        pendingChanges().bulkTables.add(table);
+    }
+
+    public void onTeamWrite(String teamName) { // 팀 이름이나 그 팀 회원의 변경, 모르면 ALL_TEAMS
+        if (teamName == null) { // 이름 없는 팀은 teamName 조건으로 찾을 수 없다.
+            return;
+        }
+        TableState state = teams.computeIfAbsent(teamName, key -> new TableState());
+        state.version.incrementAndGet();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) { // 트랜잭션이 끝날 때 한 번 더 올린다. (진행 중에 읽어간 버전 무효화)
+            pendingChanges().teamNames.add(teamName);
+        }
+    }
+
+    public void enterEntityAction() { // 엔티티 하나의 insert/update/delete SQL 실행 구간 (pre ~ post 이벤트)
+        entityActionDepth.get()[0]++;
+    }
+
+    public void exitEntityAction() {
+        int[] depth = entityActionDepth.get();
+        if (depth[0] > 0) {
+            depth[0]--;
+        }
+    }
+
+    public boolean isInEntityAction() {
+        return entityActionDepth.get()[0] > 0;
+    }
+
+    public void addChangeListener(Consumer<Set<String>> listener) { // 변경된 테이블 목록을 트랜잭션이 끝난 뒤에 받는다.
+        changeListeners.add(listener);
+    }
+
+    public void addBulkChangeListener(Consumer<Set<String>> listener) { // 벌크 연산으로 변경된 테이블 목록을 커밋 후에 받는다. (롤백되면 받지 않는다.)
+        bulkChangeListeners.add(listener);
+    }
+
+    public long version(String... tableNames) { // 여러 테이블의 버전 합 (어느 한 테이블이라도 바뀌면 값이 달라진다.)
+        long sum = 0;
+        for (String table : tableNames) {
+            sum += state(table).version.get();
+        }
+        return sum;
+    }
+
+    public long teamVersion(String teamName) { // 그 팀 버전 + ALL_TEAMS 버전, 조회만으로는 항목을 만들지 않는다. (요청마다 다른 이름이 와도 맵이 커지지 않게)
+        return teamStateVersion(teamName) + teamStateVersion(ALL_TEAMS);
+    }
+
+    private long teamStateVersion(String teamName) {
+        TableState state = teams.get(teamName);
+        return state != null ? state.version.get() : 0;
+    }
+
+    public boolean isWriting(String... tableNames) { // 커밋되지 않은 변경이 있는지
+        for (String table : tableNames) {
+            if (state(table).writers.get() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isWritingInCurrentTransaction(String table) { // 현재 트랜잭션에서 이 테이블에 SQL을 실행했는지 (커밋 전이라 그 행의 락을 잡고 있다.)
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        return pending != null && pending.tables.contains(table);
+    }
+
+    private PendingChanges pendingChanges() {
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+
+        PendingChanges created = new PendingChanges();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new PendingTablesSynchronization(created));
+        return created;
+    }
+
+    private void notifyChanged(Set<String> changedTables) {
+        for (Consumer<Set<String>> listener : changeListeners) {
+            listener.accept(changedTables);
+        }
+    }
+
+    private void notifyBulkChanged(Set<String> changedTables) {
+        for (Consumer<Set<String>> listener : bulkChangeListeners) {
+            listener.accept(changedTables);
+        }
+    }
+
+    private TableState state(String table) {
+        return tables.computeIfAbsent(table, key -> new TableState());
+    }
+
+    private static class TableState {
+        private final AtomicLong version = new AtomicLong();
+        private final AtomicInteger writers = new AtomicInteger();
+    }
+
+    private static class PendingChanges { // 트랜잭션 하나에서 변경된 테이블
+        private final Set<String> tables = new HashSet<>();
+        private final Set<String> bulkTables = new HashSet<>();
+        private final Set<String> teamNames = new HashSet<>();
+    }
+
+    private class PendingTablesSynchronization extends TransactionSynchronizationAdapter {
+
+        private final PendingChanges pending;
+
+        PendingTablesSynchronization(PendingChanges pending) {
+            this.pending = pending;
+        }
+
+        @Override
+        public void suspend() { // REQUIRES_NEW로 트랜잭션이 중단되면 내부 트랜잭션의 변경이 섞이지 않게 잠시 내려놓는다.
+            TransactionSynchronizationManager.unbindResourceIfPossible(DataChangeTracker.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(DataChangeTracker.this, pending);
+        }
+
+        @Override
+        public void afterCompletion(int status) { // 커밋, 롤백 모두 버전을 올려 진행 중에 읽어간 값을 무효화한다.
+            TransactionSynchronizationManager.unbindResourceIfPossible(DataChangeTracker.this);
+            entityActionDepth.remove(); // 엔티티 SQL 실행 중 예외로 post 이벤트가 오지 않은 경우
+            if (status == STATUS_COMMITTED && !pending.bulkTables.isEmpty()) { // writing 상태가 풀리기 전에 알려서, 그 사이에 이전 메모리 상태를 읽지 않게 한다.
+                notifyBulkChanged(Collections.unmodifiableSet(pending.bulkTables));
+            }
+            for (String table : pending.tables) {
+                TableState state = state(table);
+                state.version.incrementAndGet();
+                state.writers.decrementAndGet();
+            }
+            for (String teamName : pending.teamNames) {
+                teams.get(teamName).version.incrementAndGet();
+            }
+            notifyChanged(Collections.unmodifiableSet(pending.tables));
+        }
+
+    }
+
+}
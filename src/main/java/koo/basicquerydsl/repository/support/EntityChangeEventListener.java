@@ -0,0 +1,107 @@
+package koo.basicquerydsl.repository.support;
+
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.Team;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Member, Team 엔티티의 insert/update/delete 이벤트를 DataChangeTracker에 알린다.
+ * - insert/update/delete SQL이 실행된 직후(커밋 전)에 호출되므로, 그 트랜잭션이 끝날 때까지 관련 캐시는 사용되지 않는다.
+ * - 벌크 연산(queryFactory.update/delete(...).execute())은 엔티티 이벤트가 없으므로 DataChangeStatementInspector가 맡는다.
+ * - pre ~ post 이벤트 사이를 엔티티 SQL 실행 구간으로 표시해서, 그 밖의 DML을 벌크 연산으로 구분할 수 있게 한다.
+ * - 변경 전/후 상태의 팀 이름으로 팀별 버전도 올린다. 팀이 초기화되지 않은 프록시라 이름을 모르면(조회하지 않는다.) 모든 팀(ALL_TEAMS)의 버전을 올린다.
+ */
+@Component
+public class EntityChangeEventListener implements PreInsertEventListener, PreUpdateEventListener, PreDeleteEventListener,
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final DataChangeTracker dataChangeTracker;
+
+    public EntityChangeEventListener(DataChangeTracker dataChangeTracker) {
+        this.dataChangeTracker = dataChangeTracker;
+    }
+
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        dataChangeTracker.enterEntityAction();
+        return false; // 취소(veto)하지 않는다.
+    }
+
+    @Override
+    public boolean onPreUpdate(PreUpdateEvent event) {
+        dataChangeTracker.enterEntityAction();
+        return false;
+    }
+
+    @Override
+    public boolean onPreDelete(PreDeleteEvent event) {
+        dataChangeTracker.enterEntityAction();
+        return false;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        dataChangeTracker.exitEntityAction();
+        changed(event.getEntity());
+        teamChanged(event.getEntity(), event.getState(), event.getPersister());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        dataChangeTracker.exitEntityAction();
+        changed(event.getEntity());
+        if (event.getOldState() == null) { // 변경 전 스냅샷이 없으면 원래 팀을 알 수 없다.
+            dataChangeTracker.onTeamWrite(DataChangeTracker.ALL_TEAMS);
+        } else {
+            teamChanged(event.getEntity(), event.getOldState(), event.getPersister());
+        }
+        teamChanged(event.getEntity(), event.getState(), event.getPersister());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        dataChangeTracker.exitEntityAction();
+        changed(event.getEntity());
+        teamChanged(event.getEntity(), event.getDeletedState(), event.getPersister());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) { // 커밋 후가 아니라 SQL 실행 직후에 받는다.
+        return false;
+    }
+
+    private void changed(Object entity) {
+        if (entity instanceof Member) {
+            dataChangeTracker.onWrite(DataChangeTracker.MEMBER);
+        } else if (entity instanceof Team) {
+            dataChangeTracker.onWrite(DataChangeTracker.TEAM);
+        }
+    }
+
+    private void teamChanged(Object entity, Object[] state, EntityPersister persister) {
+        if (entity instanceof Member) {
+            Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+            if (team != null) { // 팀 없는 회원은 teamName 조건 검색 결과에 나오지 않는다.
+                dataChangeTracker.onTeamWrite(teamName(team));
+            }
+        } else if (entity instanceof Team) {
+            dataChangeTracker.onTeamWrite((String) state[persister.getEntityMetamodel().getPropertyIndex("name")]);
+        }
+    }
+
+    private static String teamName(Object team) { // 지연 로딩 프록시는 초기화하지 않는다.
+        if (team instanceof HibernateProxy) {
+            LazyInitializer initializer = ((HibernateProxy) team).getHibernateLazyInitializer();
+            if (initializer.isUninitialized()) {
+                return DataChangeTracker.ALL_TEAMS;
+            }
+            team = initializer.getImplementation();
+        }
+        return ((Team) team).getName();
+    }
+
+}
@@ -0,0 +1,44 @@
+package koo.basicquerydsl.repository.support;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 검색 조건별 totalCount 캐시
+ * - 같은 조건으로 페이지만 넘기는 경우 count 쿼리를 다시 날리지 않는다. (2페이지부터는 content 쿼리 1번만 나간다.)
+ * - TTL이 지나거나, 가장 오래 안 쓰인 항목이 maxSize를 넘거나, member/team 테이블이 바뀌면(DataChangeTracker 버전) 버린다.
+ */
+@Component
+public class MemberCountCache {
+
+    private static final String[] TABLES = {DataChangeTracker.MEMBER, DataChangeTracker.TEAM}; // teamName 조건이 team을 조인하므로 team 변경도 반영
+
+    private final VersionedLruCache<MemberSearchKey, Long> cache;
+
+    public MemberCountCache(DataChangeTracker dataChangeTracker,
+                            @Value("${member.count-cache.ttl-seconds:30}") long ttlSeconds,
+                            @Value("${member.count-cache.max-size:1000}") int maxSize) {
+        this.cache = new VersionedLruCache<>(dataChangeTracker, TABLES, TimeUnit.SECONDS.toNanos(ttlSeconds), maxSize, count -> 1);
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier countQuery) {
+        return cache.get(MemberSearchKey.of(condition), countQuery::getAsLong);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+}
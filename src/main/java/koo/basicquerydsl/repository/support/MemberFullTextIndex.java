@@ -0,0 +1,101 @@
+package koo.basicquerydsl.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * H2 내장 전문 검색(org.h2.fulltext.FullText)으로 member.username, team.name 색인을 만든다.
+ * - 색인은 H2가 테이블에 거는 트리거로 갱신되므로 엔티티 저장뿐 아니라 벌크 update/delete, 네이티브 SQL 변경도 같은 트랜잭션 안에서 반영된다.
+ * - 단어 단위(공백, 구두점으로 분리, 대소문자 무시) 일치만 찾는다. 부분 문자열, 접두사 검색은 하지 않는다.
+ * - ddl-auto: create로 테이블을 다시 만들면 트리거가 사라지므로 시작할 때마다 색인을 지우고 다시 만든다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.full-text.enabled", havingValue = "true")
+public class MemberFullTextIndex {
+
+    public static final String MEMBER_TABLE = "MEMBER";
+    public static final String TEAM_TABLE = "TEAM";
+
+    private final DataSource dataSource;
+    private final int maxHits;
+
+    public MemberFullTextIndex(DataSource dataSource,
+                               EntityManagerFactory entityManagerFactory, // 스키마 생성(ddl-auto)이 끝난 뒤에 색인을 만들도록
+                               @Value("${member.full-text.max-hits:1000}") int maxHits) {
+        this.dataSource = dataSource;
+        this.maxHits = maxHits;
+    }
+
+    @PostConstruct
+    public void create() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("create alias if not exists FT_INIT for \"org.h2.fulltext.FullText.init\"");
+            statement.execute("call FT_INIT()");
+            statement.execute("call FT_DROP_ALL()"); // 이전 실행의 색인 정보(FT 스키마)와 단어 캐시를 비운다.
+            statement.execute("call FT_INIT()");
+            statement.execute("call FT_CREATE_INDEX('PUBLIC', '" + MEMBER_TABLE + "', 'USERNAME')"); // 이미 있는 행도 색인한다.
+            statement.execute("call FT_CREATE_INDEX('PUBLIC', '" + TEAM_TABLE + "', 'NAME')");
+        }
+        log.info("전문 검색 색인 생성 (member.username, team.name)");
+    }
+
+    /**
+     * 단어 하나를 포함하는 행의 (테이블, id)를 최대 maxHits개 돌려준다.
+     * - 호출한 쪽의 커넥션(트랜잭션)에서 실행하므로 아직 커밋되지 않은 자기 변경도 보인다.
+     */
+    public List<Hit> search(Connection connection, String word) throws SQLException {
+        List<Hit> hits = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("select \"TABLE\", KEYS from FT_SEARCH_DATA(?, ?, 0)")) {
+            statement.setString(1, word);
+            statement.setInt(2, maxHits);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    Array keys = rs.getArray(2);
+                    Object[] values = (Object[]) keys.getArray(); // 기본 키 컬럼 값 (member_id 또는 team_id 하나)
+                    hits.add(new Hit(rs.getString(1), Long.parseLong(String.valueOf(values[0]))));
+                }
+            }
+        }
+        return hits;
+    }
+
+    public int getMaxHits() {
+        return maxHits;
+    }
+
+    public static final class Hit {
+
+        private final String table;
+        private final long id;
+
+        Hit(String table, long id) {
+            this.table = table;
+            this.id = id;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public long getId() {
+            return id;
+        }
+    }
+
+}
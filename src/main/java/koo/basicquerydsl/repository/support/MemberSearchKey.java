@@ -0,0 +1,40 @@
+package koo.basicquerydsl.repository.support;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import org.springframework.util.StringUtils;
+
+/**
+ * 캐시 키로 쓰기 위한 MemberSearchCondition의 불변 복사본
+ * - 검색 조건에서 무시되는 값(null, 공백 문자열)은 모두 null로 맞춰서 같은 검색이면 같은 키가 되도록 한다.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberSearchKey {
+
+    String username;
+    String usernamePrefix;
+    boolean ignoreCase;
+    String teamName;
+    Integer ageGoe;
+    Integer ageLoe;
+
+    public static MemberSearchKey of(MemberSearchCondition condition) {
+        String username = normalize(condition.getUsername());
+        String usernamePrefix = normalize(condition.getUsernamePrefix());
+        return new MemberSearchKey(
+                username,
+                usernamePrefix,
+                condition.isIgnoreCase() && (username != null || usernamePrefix != null), // username 조건이 없으면 의미 없음
+                normalize(condition.getTeamName()),
+                condition.getAgeGoe(),
+                condition.getAgeLoe());
+    }
+
+    private static String normalize(String value) { // 검색 조건은 StringUtils.hasText로 판단하므로 공백뿐인 값은 조건이 없는 것과 같다.
+        return StringUtils.hasText(value) ? value : null;
+    }
+
+}
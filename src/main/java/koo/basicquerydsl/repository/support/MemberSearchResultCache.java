@@ -0,0 +1,76 @@
+package koo.basicquerydsl.repository.support;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * searchByWhereParameter 결과 캐시 (member.search-cache.enabled: true 일 때만 사용)
+ * - 자주 들어오는 검색 조건(인기 팀, 나이대)의 결과를 조건별로 보관한다.
+ * - 결과 건수(행 수)의 합이 max-rows를 넘으면 가장 오래 안 쓰인 결과부터 버린다.
+ * - member/team이 바뀌면 (엔티티 이벤트, 벌크 연산 모두) DataChangeTracker 버전이 바뀌어 더 이상 사용되지 않고, 트랜잭션이 끝나면 메모리에서도 비운다.
+ * - MemberTeamDto는 변경 가능한 객체이므로 보관용, 반환용을 각각 복사한다. (호출한 쪽에서 수정해도 캐시가 오염되지 않게)
+ */
+@Component
+public class MemberSearchResultCache {
+
+    private static final String[] TABLES = {DataChangeTracker.MEMBER, DataChangeTracker.TEAM};
+
+    private final boolean enabled;
+    private final VersionedLruCache<MemberSearchKey, List<MemberTeamDto>> cache;
+
+    public MemberSearchResultCache(DataChangeTracker dataChangeTracker,
+                                   @Value("${member.search-cache.enabled:false}") boolean enabled,
+                                   @Value("${member.search-cache.ttl-seconds:300}") long ttlSeconds,
+                                   @Value("${member.search-cache.max-rows:100000}") long maxRows) {
+        this.enabled = enabled;
+        this.cache = new VersionedLruCache<>(dataChangeTracker, TABLES, TimeUnit.SECONDS.toNanos(ttlSeconds), maxRows, List::size);
+
+        dataChangeTracker.addChangeListener(changedTables -> {
+            if (changedTables.contains(DataChangeTracker.MEMBER) || changedTables.contains(DataChangeTracker.TEAM)) {
+                cache.clear();
+            }
+        });
+    }
+
+    public List<MemberTeamDto> get(MemberSearchCondition condition, Supplier<List<MemberTeamDto>> query) {
+        if (!enabled) {
+            return query.get();
+        }
+
+        List<MemberTeamDto> cached = cache.get(MemberSearchKey.of(condition), () -> Collections.unmodifiableList(copyOf(query.get())));
+        return copyOf(cached);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    public long getCachedRows() {
+        return cache.getTotalWeight();
+    }
+
+    private static List<MemberTeamDto> copyOf(List<MemberTeamDto> rows) {
+        List<MemberTeamDto> copy = new ArrayList<>(rows.size());
+        for (MemberTeamDto row : rows) {
+            copy.add(new MemberTeamDto(row.getMemberId(), row.getUsername(), row.getAge(), row.getTeamId(), row.getTeamName()));
+        }
+        return copy;
+    }
+
+}
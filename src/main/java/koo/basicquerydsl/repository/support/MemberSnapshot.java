@@ -0,0 +1,242 @@
+package koo.basicquerydsl.repository.support;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * 회원/팀 읽기 데이터(id, username, 나이, 팀 id, 팀 이름) 파일 스냅샷 (재시작 직후 MemberReadModel을 DB 없이 채우는 용도)
+ * - 고정 폭 컬럼(회원 id, 나이, 팀 id, username 번호 / 팀 id, 팀 이름 번호) + 문자열 테이블(UTF-8, 같은 문자열은 한 번만)
+ * - 읽을 때는 파일 전체를 MappedByteBuffer로 매핑하고 i번째 값을 위치 계산으로 바로 읽는다. (파일 전체를 한 번에 객체로 바꾸지 않는다.)
+ *   MemberReadModel은 시작할 때 모든 행을 MemberState로 읽어 인덱스를 만들므로 회원 수에 비례하는 디코딩 비용은 있다. (MemberSnapshotLoadBenchmark)
+ * - changeSeq는 스냅샷이 반영하고 있는 마지막 change_seq 값(Member.changeSeq), 시작할 때 이보다 큰 변경, 삭제(Tombstone)만 DB에서 더 읽는다. 모르면 UNKNOWN_CHANGE_SEQ
+ * - 파일은 임시 파일에 다 쓴 뒤 바꿔치기 하므로 쓰는 도중에 죽어도 이전 스냅샷이 남는다.
+ *
+ * 파일 구조 (big endian)
+ * - 헤더: magic, 형식 버전, 회원 수, 팀 수, 문자열 수, changeSeq, 만든 시각(ms)
+ * - 회원 컬럼: long[] id, int[] 나이, long[] 팀 id (팀 없음 NO_TEAM), int[] username 번호 (null이면 -1)
+ * - 팀 컬럼: long[] id, int[] 이름 번호
+ * - 문자열 테이블: int[문자열 수 + 1] 시작 위치, byte[] UTF-8
+ */
+public class MemberSnapshot {
+
+    public static final long NO_TEAM = -1L;
+    public static final long UNKNOWN_CHANGE_SEQ = -1L;
+
+    private static final int MAGIC = 0x4D534E50; // "MSNP"
+    private static final int FORMAT_VERSION = 2; // 1: 회원/팀 id high-water mark
+    private static final int HEADER_BYTES = 4 * 5 + 8 * 2;
+
+    private final MappedByteBuffer buffer;
+    private final int memberCount;
+    private final int teamCount;
+    private final int stringCount;
+    private final long changeSeq;
+    private final long createdAtMillis;
+    private final int memberIdsAt;
+    private final int agesAt;
+    private final int memberTeamIdsAt;
+    private final int usernamesAt;
+    private final int teamIdsAt;
+    private final int teamNamesAt;
+    private final int offsetsAt;
+    private final int bytesAt;
+
+    private MemberSnapshot(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("회원 스냅샷 파일이 아닙니다.");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalStateException("지원하지 않는 회원 스냅샷 형식입니다. version=" + buffer.getInt(4));
+        }
+
+        this.memberCount = buffer.getInt(8);
+        this.teamCount = buffer.getInt(12);
+        this.stringCount = buffer.getInt(16);
+        this.changeSeq = buffer.getLong(20);
+        this.createdAtMillis = buffer.getLong(28);
+
+        this.memberIdsAt = HEADER_BYTES;
+        this.agesAt = memberIdsAt + 8 * memberCount;
+        this.memberTeamIdsAt = agesAt + 4 * memberCount;
+        this.usernamesAt = memberTeamIdsAt + 8 * memberCount;
+        this.teamIdsAt = usernamesAt + 4 * memberCount;
+        this.teamNamesAt = teamIdsAt + 8 * teamCount;
+        this.offsetsAt = teamNamesAt + 4 * teamCount;
+        this.bytesAt = offsetsAt + 4 * (stringCount + 1);
+        if (bytesAt > buffer.capacity() || bytesAt + buffer.getInt(offsetsAt + 4 * stringCount) != buffer.capacity()) {
+            throw new IllegalStateException("회원 스냅샷 파일이 잘렸습니다.");
+        }
+    }
+
+    public static MemberSnapshot map(Path file) { // 매핑은 채널을 닫아도 유지된다.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MemberSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * members는 회원 id 순서가 아니어도 된다. (파일에는 id 순서로 쓴다.)
+     */
+    public static void write(Path file, Collection<MemberState> members, Map<Long, String> teams, long changeSeq) {
+        MemberState[] rows = members.toArray(new MemberState[0]);
+        Arrays.sort(rows, Comparator.comparing(MemberState::getMemberId));
+        List<Map.Entry<Long, String>> teamRows = new ArrayList<>(new TreeMap<>(teams).entrySet());
+
+        StringTable strings = new StringTable();
+        int[] usernameRefs = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            usernameRefs[i] = strings.ref(rows[i].getUsername());
+        }
+        int[] teamNameRefs = new int[teamRows.size()];
+        for (int i = 0; i < teamRows.size(); i++) {
+            teamNameRefs[i] = strings.ref(teamRows.get(i).getValue());
+        }
+
+        long size = HEADER_BYTES + (8L + 4 + 8 + 4) * rows.length + (8L + 4) * teamRows.size()
+                + 4L * (strings.values.size() + 1) + strings.bytes;
+        if (size > Integer.MAX_VALUE) { // MappedByteBuffer 하나로 매핑할 수 있는 크기
+            throw new IllegalStateException("회원 스냅샷이 2GB를 넘습니다. size=" + size);
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(rows.length);
+                out.writeInt(teamRows.size());
+                out.writeInt(strings.values.size());
+                out.writeLong(changeSeq);
+                out.writeLong(System.currentTimeMillis());
+
+                for (MemberState row : rows) {
+                    out.writeLong(row.getMemberId());
+                }
+                for (MemberState row : rows) {
+                    out.writeInt(row.getAge());
+                }
+                for (MemberState row : rows) {
+                    out.writeLong(row.getTeamId() != null ? row.getTeamId() : NO_TEAM);
+                }
+                for (int ref : usernameRefs) {
+                    out.writeInt(ref);
+                }
+                for (Map.Entry<Long, String> team : teamRows) {
+                    out.writeLong(team.getKey());
+                }
+                for (int ref : teamNameRefs) {
+                    out.writeInt(ref);
+                }
+
+                int offset = 0;
+                for (byte[] value : strings.values) {
+                    out.writeInt(offset);
+                    offset += value.length;
+                }
+                out.writeInt(offset);
+                for (byte[] value : strings.values) {
+                    out.write(value);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int memberCount() {
+        return memberCount;
+    }
+
+    public long memberId(int i) {
+        return buffer.getLong(memberIdsAt + 8 * i);
+    }
+
+    public int age(int i) {
+        return buffer.getInt(agesAt + 4 * i);
+    }
+
+    public Long teamId(int i) { // 팀이 없으면 null
+        long teamId = buffer.getLong(memberTeamIdsAt + 8 * i);
+        return teamId != NO_TEAM ? teamId : null;
+    }
+
+    public String username(int i) {
+        return string(buffer.getInt(usernamesAt + 4 * i));
+    }
+
+    public MemberState member(int i) {
+        return new MemberState(memberId(i), username(i), age(i), teamId(i));
+    }
+
+    public int teamCount() {
+        return teamCount;
+    }
+
+    public long teamIdAt(int j) {
+        return buffer.getLong(teamIdsAt + 8 * j);
+    }
+
+    public String teamName(int j) {
+        return string(buffer.getInt(teamNamesAt + 4 * j));
+    }
+
+    public long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    private String string(int ref) {
+        if (ref < 0) {
+            return null;
+        }
+        int from = buffer.getInt(offsetsAt + 4 * ref);
+        int to = buffer.getInt(offsetsAt + 4 * (ref + 1));
+        byte[] bytes = new byte[to - from];
+        ByteBuffer view = buffer.duplicate(); // position을 따로 가지므로 여러 스레드에서 읽어도 된다.
+        view.position(bytesAt + from);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static class StringTable {
+
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private long bytes;
+
+        int ref(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return refs.computeIfAbsent(value, key -> {
+                byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+                values.add(encoded);
+                bytes += encoded.length;
+                return values.size() - 1;
+            });
+        }
+
+    }
+
+}
@@ -0,0 +1,17 @@
+package koo.basicquerydsl.repository.support;
+
+import lombok.Value;
+
+/**
+ * 커밋된 회원 한 명의 값 (CommittedEntityChangeHandler에 넘긴다.)
+ * - 엔티티 대신 값만 넘겨서 핸들러가 영속성 컨텍스트나 지연 로딩에 손대지 않게 한다.
+ */
+@Value
+public class MemberState {
+
+    Long memberId;
+    String username;
+    int age;
+    Long teamId; // 팀이 없으면 null
+
+}
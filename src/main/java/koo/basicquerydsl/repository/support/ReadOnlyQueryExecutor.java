@@ -0,0 +1,145 @@
+package koo.basicquerydsl.repository.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 조회 쿼리를 별도 스레드의 읽기 전용 트랜잭션(= 별도 커넥션)에서 실행한다.
+ * - 쿼리마다 트랜잭션이 따로 열리므로 엔티티가 아닌 DTO, 숫자 같은 값만 돌려받아야 한다. (지연 로딩 불가)
+ * - 같이 실행한 쿼리들은 서로 다른 트랜잭션이므로 그 사이에 커밋된 변경은 한쪽에만 보일 수 있다.
+ */
+@Slf4j
+@Component
+public class ReadOnlyQueryExecutor {
+
+    private final ThreadPoolTaskExecutor searchQueryExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final EntityManager em;
+
+    public ReadOnlyQueryExecutor(@Qualifier("searchQueryExecutor") ThreadPoolTaskExecutor searchQueryExecutor,
+                                 PlatformTransactionManager transactionManager,
+                                 EntityManager em) {
+        this.searchQueryExecutor = searchQueryExecutor;
+        this.em = em;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW); // 요청 스레드에서 실행되더라도 호출한 쪽 트랜잭션에 섞이지 않게
+    }
+
+    public <T> QueryTask<T> submit(Supplier<T> query) {
+        return submit(searchQueryExecutor, query);
+    }
+
+    /**
+     * executor를 골라서 실행한다. executor의 큐가 가득 차면 TaskRejectedException (RejectedPolicy에 따라 다름)
+     */
+    public <T> QueryTask<T> submit(ThreadPoolTaskExecutor executor, Supplier<T> query) {
+        return submit(executor, query, () -> {
+        });
+    }
+
+    /**
+     * onExit: 작업 스레드가 이 작업을 정말로 놓았을 때 한 번 호출된다. (트랜잭션이 끝나 커넥션을 반납한 뒤, 또는 시작 전에 취소되어 실행되지 않게 된 때)
+     * - 취소(cancel)는 future를 바로 완료시키지만, 실행 중인 작업은 JDBC 밖(결과 변환 등)에서 계속 돌 수 있으므로 future 완료를 작업 종료로 보면 안 된다.
+     * - executor가 작업을 거절(TaskRejectedException)하면 호출되지 않는다.
+     */
+    public <T> QueryTask<T> submit(ThreadPoolTaskExecutor executor, Supplier<T> query, Runnable onExit) {
+        QueryTask<T> task = new QueryTask<>(onExit);
+        task.future = executor.submitListenable(() -> task.execute(() -> readOnlyTransaction.execute(status -> task.run(em.unwrap(Session.class), query))));
+        return task;
+    }
+
+    public static class QueryTask<T> {
+
+        private static final int PENDING = 0;
+        private static final int RUNNING = 1;
+        private static final int EXITED = 2;
+
+        private final Runnable onExit;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private volatile ListenableFuture<T> future;
+        private volatile Session session; // 실행 중인 쿼리를 취소하기 위한 세션
+        private volatile boolean cancelled;
+
+        QueryTask(Runnable onExit) {
+            this.onExit = onExit;
+        }
+
+        private T execute(Supplier<T> transaction) { // 작업 스레드에서 트랜잭션 전체를 감싼다.
+            if (!state.compareAndSet(PENDING, RUNNING)) { // 시작 전에 취소되어 cancel()에서 이미 onExit를 호출했다.
+                throw new CancellationException("실행 전에 취소된 쿼리입니다.");
+            }
+            try {
+                return transaction.get();
+            } finally {
+                state.set(EXITED);
+                onExit.run();
+            }
+        }
+
+        private T run(Session session, Supplier<T> query) {
+            this.session = session;
+            try {
+                if (cancelled) {
+                    throw new CancellationException("실행 전에 취소된 쿼리입니다.");
+                }
+                return query.get();
+            } finally {
+                this.session = null;
+            }
+        }
+
+        public T get() {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new IllegalStateException("쿼리 결과를 기다리는 중에 인터럽트 되었습니다.", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+
+        public CompletableFuture<T> completable() { // 끝나면(성공, 실패, 취소) 완료된다.
+            return future.completable();
+        }
+
+        public void cancel() { // 아직 시작 전이면 실행하지 않고, 실행 중이면 JDBC Statement.cancel()로 DB 쿼리까지 취소한다.
+            cancelled = true;
+            Session running = session;
+            if (running != null) {
+                try {
+                    running.cancelQuery();
+                } catch (HibernateException e) {
+                    log.debug("쿼리 취소 실패 (이미 끝난 쿼리일 수 있음)", e);
+                }
+            }
+            future.cancel(false);
+            if (state.compareAndSet(PENDING, EXITED)) { // 큐에서 기다리던 작업은 이제 실행되지 않는다.
+                onExit.run();
+            }
+        }
+
+    }
+
+}
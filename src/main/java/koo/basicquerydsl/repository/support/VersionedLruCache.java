@@ -0,0 +1,123 @@
+package koo.basicquerydsl.repository.support;
+
+import koo.basicquerydsl.datasource.ReplicaReads;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * DataChangeTracker 버전으로 무효화되는 LRU 캐시 (MemberCountCache, MemberSearchResultCache 공통)
+ * - 값을 저장할 때의 테이블 버전과 지금 버전이 다르거나, TTL이 지났으면 버린다.
+ * - 커밋되지 않은 변경이 있는 동안에는 캐시를 거치지 않고 바로 조회한다. (커밋 직후 이전 값을 돌려주지 않기 위함)
+ * - 값은 원본에서 읽어서 채운다. (ReplicaReads.onPrimary) 이미 복제본 커넥션을 쓰는 트랜잭션에서 읽은 값은 복제 지연만큼 이전 값일 수 있으므로 저장하지 않는다.
+ * - 값마다 무게(weigher)를 매겨서 무게 합이 maxWeight를 넘으면 가장 오래 안 쓰인 것부터 버린다. (무게가 1이면 건수 제한)
+ */
+public class VersionedLruCache<K, V> {
+
+    private final DataChangeTracker dataChangeTracker;
+    private final String[] tables;
+    private final long ttlNanos;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true); // accessOrder = true => LRU
+    private long totalWeight;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public VersionedLruCache(DataChangeTracker dataChangeTracker, String[] tables, long ttlNanos, long maxWeight, ToLongFunction<V> weigher) {
+        this.dataChangeTracker = dataChangeTracker;
+        this.tables = tables.clone();
+        this.ttlNanos = ttlNanos;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        if (dataChangeTracker.isWriting(tables)) {
+            missCount.incrementAndGet();
+            return loader.get();
+        }
+
+        long version = dataChangeTracker.version(tables);
+        long now = System.nanoTime();
+
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.version == version && now - entry.loadedAt < ttlNanos) {
+                hitCount.incrementAndGet();
+                return entry.value;
+            }
+        }
+
+        missCount.incrementAndGet();
+        if (ReplicaReads.isCurrentTransactionOnReplica()) {
+            return loader.get();
+        }
+        V value = ReplicaReads.onPrimary(loader);
+
+        if (!dataChangeTracker.isWriting(tables) && dataChangeTracker.version(tables) == version) { // 조회하는 동안 데이터가 바뀌었으면 저장하지 않는다.
+            put(key, new Entry<>(value, version, now, weigher.applyAsLong(value)));
+        }
+        return value;
+    }
+
+    private synchronized void put(K key, Entry<V> entry) {
+        if (entry.weight > maxWeight) { // 혼자서 한도를 넘는 값은 저장하지 않는다.
+            return;
+        }
+
+        Entry<V> previous = entries.put(key, entry);
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        totalWeight += entry.weight;
+
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && eldest.hasNext()) {
+            totalWeight -= eldest.next().getValue().weight;
+            eldest.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalWeight() {
+        return totalWeight;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long version;
+        private final long loadedAt;
+        private final long weight;
+
+        Entry(V value, long version, long loadedAt, long weight) {
+            this.value = value;
+            this.version = version;
+            this.loadedAt = loadedAt;
+            this.weight = weight;
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package koo.basicquerydsl.service;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 나이별 회원 수 히스토그램 (TeamAgeStatistics의 팀 하나)
+ * - 0 ~ MAX_AGE는 배열 칸 하나에 한 나이, 누적 개수는 Fenwick 트리(prefix sum)로 구해서 범위 개수가 O(log n)이다.
+ * - 범위를 벗어난 나이는 따로 보관해서 집계 값은 항상 정확하다.
+ * - 동기화하지 않는다. (TeamAgeStatistics가 락을 잡고 사용)
+ */
+class AgeHistogram {
+
+    static final int MAX_AGE = 200;
+
+    private final long[] counts = new long[MAX_AGE + 1];
+    private final long[] tree = new long[MAX_AGE + 2]; // Fenwick 트리, 1부터 사용
+    private final NavigableMap<Integer, Long> outliers = new TreeMap<>();
+    private long count;
+    private long sum;
+
+    void add(int age, long n) {
+        if (inRange(age)) {
+            counts[age] += n;
+            for (int i = age + 1; i < tree.length; i += i & -i) {
+                tree[i] += n;
+            }
+        } else {
+            outliers.merge(age, n, Long::sum);
+        }
+        count += n;
+        sum += (long) age * n;
+    }
+
+    boolean remove(int age) { // 없는 나이를 빼려고 하면 false (메모리 상태가 DB와 어긋났다.)
+        if (inRange(age)) {
+            if (counts[age] == 0) {
+                return false;
+            }
+            counts[age]--;
+            for (int i = age + 1; i < tree.length; i += i & -i) {
+                tree[i]--;
+            }
+        } else {
+            Long n = outliers.get(age);
+            if (n == null) {
+                return false;
+            }
+            if (n == 1) {
+                outliers.remove(age);
+            } else {
+                outliers.put(age, n - 1);
+            }
+        }
+        count--;
+        sum -= age;
+        return true;
+    }
+
+    long count() {
+        return count;
+    }
+
+    long sum() {
+        return sum;
+    }
+
+    Integer min() {
+        if (count == 0) {
+            return null;
+        }
+        if (!outliers.isEmpty() && outliers.firstKey() < 0) {
+            return outliers.firstKey();
+        }
+        for (int age = 0; age <= MAX_AGE; age++) {
+            if (counts[age] > 0) {
+                return age;
+            }
+        }
+        return outliers.firstKey();
+    }
+
+    Integer max() {
+        if (count == 0) {
+            return null;
+        }
+        if (!outliers.isEmpty() && outliers.lastKey() > MAX_AGE) {
+            return outliers.lastKey();
+        }
+        for (int age = MAX_AGE; age >= 0; age--) {
+            if (counts[age] > 0) {
+                return age;
+            }
+        }
+        return outliers.lastKey();
+    }
+
+    long countBetween(int ageGoe, int ageLoe) { // ageGoe <= age <= ageLoe
+        if (ageGoe > ageLoe) {
+            return 0;
+        }
+
+        long result = 0;
+        int from = Math.max(ageGoe, 0);
+        int to = Math.min(ageLoe, MAX_AGE);
+        if (from <= to) {
+            result += prefix(to) - (from > 0 ? prefix(from - 1) : 0);
+        }
+        for (Map.Entry<Integer, Long> outlier : outliers.subMap(ageGoe, true, ageLoe, true).entrySet()) {
+            result += outlier.getValue();
+        }
+        return result;
+    }
+
+    private long prefix(int age) { // 0 ~ age 회원 수
+        long result = 0;
+        for (int i = age + 1; i > 0; i -= i & -i) {
+            result += tree[i];
+        }
+        return result;
+    }
+
+    private static boolean inRange(int age) {
+        return age >= 0 && age <= MAX_AGE;
+    }
+
+}
@@ -0,0 +1,276 @@
+package koo.basicquerydsl.service;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.repository.support.DataChangeTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * 회원 벌크 수정/삭제를 member.id 구간(청크)으로 나눠서 실행한다.
+ * - 한 번에 전체를 update/delete 하면 락을 오래 잡고 있으므로, 청크마다 트랜잭션을 따로(REQUIRES_NEW) 커밋하고 parallelism 만큼 동시에 실행한다.
+ *   호출한 쪽 트랜잭션이 있어도 청크는 거기에 참여하지 않는다. (호출한 스레드에서 실행하는 경우도 마찬가지)
+ * - 벌크 연산은 영속성 컨텍스트를 무시하므로, 끝난 뒤 호출한 쪽 영속성 컨텍스트에 있던 회원 중 대상이었던 것만 detach(또는 refresh) 한다.
+ * - predicate는 member 경로만 사용해야 한다. (벌크 연산은 조인 불가)
+ * - 호출한 쪽 트랜잭션에서 수정하고 아직 커밋하지 않은 회원이 있으면 청크 트랜잭션이 그 락을 기다리고, 호출한 쪽은 청크를 기다리므로 서로 멈춘다.
+ *   그래서 시작 전에 호출한 쪽 영속성 컨텍스트를 flush 하고, 그 트랜잭션에서 member를 변경했으면 IllegalStateException으로 거부한다. (먼저 커밋하거나 트랜잭션 밖에서 호출)
+ */
+@Slf4j
+@Service
+public class MemberBulkOperations {
+
+    public enum SyncMode {
+        EVICT,  // 대상 엔티티를 영속성 컨텍스트에서 분리 (다음 조회 때 DB에서 다시 읽는다.)
+        REFRESH // 대상 엔티티를 DB 값으로 다시 읽는다. (삭제는 항상 분리)
+    }
+
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory queryFactory;
+    private final DataChangeTracker dataChangeTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final int defaultChunkSize;
+    private final int defaultParallelism;
+    private final QMember member = QMember.member;
+
+    public MemberBulkOperations(EntityManager em, EntityManagerFactory emf, PlatformTransactionManager transactionManager, DataChangeTracker dataChangeTracker,
+                                @Value("${member.bulk.chunk-size:10000}") int defaultChunkSize,
+                                @Value("${member.bulk.parallelism:2}") int defaultParallelism) {
+        this.emf = emf;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.dataChangeTracker = dataChangeTracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW); // 청크마다 커밋 (호출한 쪽 트랜잭션에 참여하지 않는다.)
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.defaultChunkSize = defaultChunkSize;
+        this.defaultParallelism = defaultParallelism;
+    }
+
+    public BulkResult update(Predicate where, UnaryOperator<JPAUpdateClause> assignments) {
+        return update(where, assignments, defaultChunkSize, defaultParallelism, SyncMode.EVICT);
+    }
+
+    /**
+     * ex) update(member.age.lt(28), clause -> clause.set(member.username, "비회원"), 10000, 4, SyncMode.REFRESH)
+     */
+    public BulkResult update(Predicate where, UnaryOperator<JPAUpdateClause> assignments, int chunkSize, int parallelism, SyncMode syncMode) {
+        return execute("update", where, chunkSize, parallelism, syncMode,
+                range -> assignments.apply(queryFactory.update(member)).where(where, range).execute());
+    }
+
+    public BulkResult delete(Predicate where) {
+        return delete(where, defaultChunkSize, defaultParallelism);
+    }
+
+    public BulkResult delete(Predicate where, int chunkSize, int parallelism) {
+        return execute("delete", where, chunkSize, parallelism, SyncMode.EVICT,
+                range -> queryFactory.delete(member).where(where, range).execute());
+    }
+
+    private BulkResult execute(String operation, Predicate where, int chunkSize, int parallelism, SyncMode syncMode, ChunkStatement statement) {
+        if (chunkSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("chunkSize, parallelism은 1 이상이어야 합니다. chunkSize=" + chunkSize + ", parallelism=" + parallelism);
+        }
+
+        long start = System.nanoTime();
+        EntityManager callerEm = EntityManagerFactoryUtils.getTransactionalEntityManager(emf); // 호출한 스레드에 묶인 영속성 컨텍스트 (없으면 null)
+        checkNoUncommittedMemberWrite(callerEm);
+        List<Member> affectedManaged = affectedManagedMembers(callerEm, where);
+
+        List<BooleanExpression> ranges = readOnlyTransactionTemplate.execute(status -> idRanges(where, chunkSize));
+
+        AtomicLong rows = new AtomicLong();
+        AtomicInteger doneChunks = new AtomicInteger();
+        List<Runnable> chunks = new ArrayList<>();
+        for (BooleanExpression range : ranges) {
+            chunks.add(() -> {
+                Long affected = transactionTemplate.execute(status -> statement.execute(range));
+                long total = rows.addAndGet(affected);
+                log.info("회원 벌크 {} 진행 {}/{} 청크, {}건 ({} rows/s)", operation, doneChunks.incrementAndGet(), ranges.size(), total, rowsPerSecond(total, System.nanoTime() - start));
+            });
+        }
+        run(chunks, parallelism);
+
+        synchronize(callerEm, affectedManaged, operation.equals("delete") ? SyncMode.EVICT : syncMode);
+
+        BulkResult result = new BulkResult(rows.get(), ranges.size(), System.nanoTime() - start);
+        log.info("회원 벌크 {} 완료 {}", operation, result);
+        return result;
+    }
+
+    private void checkNoUncommittedMemberWrite(EntityManager callerEm) { // 청크 트랜잭션이 호출한 쪽 트랜잭션의 락을 기다리며 멈추지 않게
+        if (callerEm == null || !callerEm.isJoinedToTransaction()) { // 트랜잭션 없이 열린 영속성 컨텍스트(OSIV)는 쓰기를 하지 않는다.
+            return;
+        }
+        callerEm.flush(); // 아직 SQL로 나가지 않은 변경도 확인한다.
+        if (dataChangeTracker.isWritingInCurrentTransaction(DataChangeTracker.MEMBER)) {
+            throw new IllegalStateException("호출한 트랜잭션에 커밋되지 않은 회원 변경이 있어 청크 트랜잭션이 그 락을 기다리게 됩니다. 먼저 커밋하거나 트랜잭션 밖에서 호출하세요.");
+        }
+    }
+
+    private List<Member> affectedManagedMembers(EntityManager callerEm, Predicate where) { // 영속성 컨텍스트에 있는 회원 중 벌크 연산 대상인 것 (연산 전에 판단해야 한다.)
+        if (callerEm == null) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Member> managed = new HashMap<>();
+        for (Object entity : callerEm.unwrap(SessionImplementor.class).getPersistenceContext().getEntitiesByKey().values()) {
+            if (entity instanceof Member) {
+                Member managedMember = (Member) entity;
+                managed.put(managedMember.getId(), managedMember);
+            }
+        }
+        if (managed.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> targetIds = new JPAQueryFactory(callerEm)
+                .select(member.id)
+                .from(member)
+                .where(where, member.id.in(managed.keySet()))
+                .fetch();
+
+        List<Member> affected = new ArrayList<>(targetIds.size());
+        for (Long id : targetIds) {
+            affected.add(managed.get(id));
+        }
+        return affected;
+    }
+
+    private List<BooleanExpression> idRanges(Predicate where, int chunkSize) { // 대상 회원을 id 순으로 chunkSize개씩 자른 (after, last] 구간들
+        List<BooleanExpression> ranges = new ArrayList<>();
+        Long after = null;
+
+        while (true) {
+            Long last = queryFactory
+                    .select(member.id)
+                    .from(member)
+                    .where(where, idGt(after))
+                    .orderBy(member.id.asc())
+                    .offset(chunkSize - 1)
+                    .limit(1)
+                    .fetchFirst();
+
+            if (last == null) { // 남은 대상이 chunkSize보다 적다.
+                Long any = queryFactory
+                        .select(member.id)
+                        .from(member)
+                        .where(where, idGt(after))
+                        .fetchFirst();
+                if (any != null) {
+                    ranges.add(idGt(after));
+                }
+                return ranges;
+            }
+
+            BooleanExpression range = idGt(after);
+            ranges.add(range != null ? range.and(member.id.loe(last)) : member.id.loe(last));
+            after = last;
+        }
+    }
+
+    private BooleanExpression idGt(Long after) {
+        return after != null ? member.id.gt(after) : null;
+    }
+
+    private void synchronize(EntityManager callerEm, List<Member> affectedManaged, SyncMode syncMode) {
+        for (Member managedMember : affectedManaged) {
+            if (syncMode == SyncMode.REFRESH) {
+                callerEm.refresh(managedMember);
+            } else {
+                callerEm.detach(managedMember);
+            }
+        }
+    }
+
+    private void run(List<Runnable> chunks, int parallelism) {
+        if (parallelism == 1 || chunks.size() <= 1) {
+            chunks.forEach(Runnable::run);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable chunk : chunks) {
+                futures.add(executor.submit(chunk));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("회원 벌크 연산이 중단되었습니다.", e);
+        } catch (ExecutionException e) { // 이미 커밋된 청크는 되돌리지 않는다.
+            throw new IllegalStateException("회원 벌크 연산에 실패했습니다.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long rowsPerSecond(long rows, long elapsedNanos) {
+        return elapsedNanos > 0 ? rows * 1_000_000_000L / elapsedNanos : rows;
+    }
+
+    private interface ChunkStatement {
+        long execute(BooleanExpression range);
+    }
+
+    public static class BulkResult {
+
+        private final long rows;
+        private final int chunks;
+        private final long elapsedNanos;
+
+        BulkResult(long rows, int chunks, long elapsedNanos) {
+            this.rows = rows;
+            this.chunks = chunks;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public long getRowsPerSecond() {
+            return rowsPerSecond(rows, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "BulkResult(rows=" + rows + ", chunks=" + chunks + ", elapsedMillis=" + getElapsedMillis() + ", rowsPerSecond=" + getRowsPerSecond() + ")";
+        }
+
+    }
+
+}
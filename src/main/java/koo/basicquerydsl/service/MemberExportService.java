@@ -0,0 +1,62 @@
+package koo.basicquerydsl.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import koo.basicquerydsl.dto.MemberJsonSerializers;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.repository.MemberQueryDslRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * 회원 검색 결과를 NDJSON(한 줄에 JSON 하나)으로 내보낸다.
+ * - 행을 읽는 대로 바로 출력 스트림에 쓰므로 회원 수와 상관없이 메모리 사용량이 일정하다.
+ * - 행마다 ObjectMapper.writeValue(SerializerProvider 생성, serializer 조회)를 거치지 않고 MemberJsonSerializers로 바로 쓴다.
+ * - fetchSize 행마다, 그리고 끝에서 한 번 flush 한다. 행마다 flush 하면 gzip(application/x-ndjson 응답 압축)이 행마다 sync flush와 소켓 쓰기를 해서 처리량과 압축률이 떨어진다.
+ */
+@Service
+public class MemberExportService {
+
+    private final MemberQueryDslRepository memberQueryDslRepository;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public MemberExportService(MemberQueryDslRepository memberQueryDslRepository, ObjectMapper objectMapper,
+                               @Value("${member.export.fetch-size:1000}") int fetchSize) {
+        this.memberQueryDslRepository = memberQueryDslRepository;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    @Transactional(readOnly = true) // 서버 커서는 트랜잭션(커넥션)이 열려 있는 동안만 유효하다.
+    public long exportNdjson(MemberSearchCondition condition, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false); // 출력 스트림(응답)은 호출한 쪽에서 닫는다.
+            generator.setRootValueSeparator(null); // 루트 값 사이에 기본 구분자(공백)를 넣지 않는다. (줄바꿈은 직접 쓴다.)
+
+            long[] written = {0};
+            long count = memberQueryDslRepository.streamByWhereParameter(condition, fetchSize, row -> {
+                try {
+                    MemberJsonSerializers.write(row, generator);
+                    generator.writeRaw('\n');
+                    if (++written[0] % fetchSize == 0) { // fetchSize 단위로 클라이언트에 바로 내보낸다.
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // 클라이언트가 연결을 끊으면 여기서 중단되고 커서도 닫힌다.
+                }
+            });
+
+            generator.flush();
+            return count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+}
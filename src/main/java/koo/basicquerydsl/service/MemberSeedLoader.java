@@ -0,0 +1,165 @@
+package koo.basicquerydsl.service;
+
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.Team;
+import koo.basicquerydsl.repository.support.CommittedEntityChangeHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 대량 샘플 데이터 생성기
+ * - 시퀀스(pooled) id + hibernate.jdbc.batch_size로 insert를 JDBC 배치로 묶는다. (IDENTITY면 persist마다 insert가 바로 나가서 배치 불가)
+ * - 회원은 chunkSize 단위로 나눠 각자 트랜잭션에서 병렬로 insert 하고, batchSize마다 flush/clear 해서 영속성 컨텍스트가 커지지 않게 한다.
+ * - 커밋 후 변경 핸들러(member.statistics, member.read-model)가 켜져 있으면 Hibernate가 커밋 때까지 insert 액션을 모두 붙잡고 있어서
+ *   flush/clear 해도 청크 하나만큼 메모리를 쓴다. seed 프로파일(application-seed.yml)에서는 끈다.
+ */
+@Slf4j
+@Component
+public class MemberSeedLoader {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final ObjectProvider<CommittedEntityChangeHandler> committedChangeHandlers;
+
+    public MemberSeedLoader(EntityManager em, PlatformTransactionManager transactionManager,
+                            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}") int batchSize,
+                            ObjectProvider<CommittedEntityChangeHandler> committedChangeHandlers) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.committedChangeHandlers = committedChangeHandlers;
+    }
+
+    public SeedResult load(MemberSeedSpec spec) {
+        long start = System.nanoTime();
+        committedChangeHandlers.orderedStream().findAny().ifPresent(handler ->
+                log.warn("커밋 후 변경 핸들러({})가 켜져 있어 청크마다 insert 액션이 커밋 때까지 메모리에 남는다. (chunkSize={})",
+                        handler.getClass().getSimpleName(), spec.getChunkSize()));
+
+        long[] teamIds = transactionTemplate.execute(status -> persistTeams(spec));
+
+        AtomicLong inserted = new AtomicLong();
+        List<Runnable> chunks = new ArrayList<>();
+        for (long from = 0; from < spec.getMembers(); from += spec.getChunkSize()) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(from + spec.getChunkSize(), spec.getMembers());
+            chunks.add(() -> {
+                transactionTemplate.execute(status -> {
+                    persistMembers(spec, teamIds, chunkFrom, chunkTo);
+                    return null;
+                });
+                long done = inserted.addAndGet(chunkTo - chunkFrom);
+                log.info("회원 생성 중 {}/{} ({} rows/s)", done, spec.getMembers(), rowsPerSecond(done, System.nanoTime() - start));
+            });
+        }
+        run(chunks, spec.getThreads());
+
+        SeedResult result = new SeedResult(spec.getTeams(), inserted.get(), System.nanoTime() - start);
+        log.info("샘플 데이터 생성 완료 {}", result);
+        return result;
+    }
+
+    private long[] persistTeams(MemberSeedSpec spec) {
+        long[] teamIds = new long[spec.getTeams()];
+        for (int i = 0; i < spec.getTeams(); i++) {
+            Team team = new Team(spec.teamName(i));
+            em.persist(team);
+            teamIds[i] = team.getId(); // 시퀀스 전략이므로 persist 시점에 id가 정해진다.
+        }
+        return teamIds;
+    }
+
+    private void persistMembers(MemberSeedSpec spec, long[] teamIds, long from, long to) {
+        SplittableRandom random = new SplittableRandom(from); // 청크마다 같은 시드 => 몇 번을 실행해도 같은 배정
+        for (long i = from; i < to; i++) {
+            Member member = new Member(spec.username(i), spec.age(i));
+            member.setTeam(em.getReference(Team.class, teamIds[spec.teamIndex(i, random)])); // changeTeam()은 team.members를 초기화(select)하므로 쓰지 않는다.
+            em.persist(member);
+
+            if ((i - from + 1) % batchSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+    }
+
+    private void run(List<Runnable> chunks, int threads) {
+        if (threads == 1) {
+            chunks.forEach(Runnable::run);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable chunk : chunks) {
+                futures.add(executor.submit(chunk));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("샘플 데이터 생성이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("샘플 데이터 생성에 실패했습니다.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long rowsPerSecond(long rows, long elapsedNanos) {
+        return elapsedNanos > 0 ? rows * 1_000_000_000L / elapsedNanos : rows;
+    }
+
+    public static class SeedResult {
+
+        private final int teams;
+        private final long members;
+        private final long elapsedNanos;
+
+        SeedResult(int teams, long members, long elapsedNanos) {
+            this.teams = teams;
+            this.members = members;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getTeams() {
+            return teams;
+        }
+
+        public long getMembers() {
+            return members;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public long getRowsPerSecond() {
+            return rowsPerSecond(members, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return "SeedResult(teams=" + teams + ", members=" + members + ", elapsedMillis=" + getElapsedMillis() + ", rowsPerSecond=" + getRowsPerSecond() + ")";
+        }
+
+    }
+
+}
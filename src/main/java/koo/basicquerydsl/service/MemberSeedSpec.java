@@ -0,0 +1,57 @@
+package koo.basicquerydsl.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.SplittableRandom;
+
+/**
+ * 샘플 데이터 생성 조건 (회원 수, 팀 수, 회원을 팀에 배정하는 방식, 청크 크기, 병렬 스레드 수)
+ */
+@Getter
+@ToString
+public class MemberSeedSpec {
+
+    public enum TeamDistribution {
+        ROUND_ROBIN, // i번째 회원은 i % 팀수 번째 팀 (모든 팀이 같은 인원)
+        SKEWED       // 앞쪽 팀에 회원이 몰리도록 배정 (인기 팀이 있는 실제 데이터와 비슷하게)
+    }
+
+    private final long members;
+    private final int teams;
+    private final TeamDistribution distribution;
+    private final int chunkSize; // 트랜잭션 하나에서 insert 하는 회원 수
+    private final int threads;
+
+    public MemberSeedSpec(long members, int teams, TeamDistribution distribution, int chunkSize, int threads) {
+        if (members < 0 || teams < 1 || chunkSize < 1 || threads < 1) {
+            throw new IllegalArgumentException("잘못된 샘플 데이터 조건입니다. members=" + members + ", teams=" + teams + ", chunkSize=" + chunkSize + ", threads=" + threads);
+        }
+        this.members = members;
+        this.teams = teams;
+        this.distribution = distribution;
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+    }
+
+    public String teamName(int teamIndex) { // teamA, teamB, ... (26개를 넘으면 team26, team27, ...)
+        return teamIndex < 26 ? "team" + (char) ('A' + teamIndex) : "team" + teamIndex;
+    }
+
+    public String username(long memberIndex) {
+        return "member" + memberIndex;
+    }
+
+    public int age(long memberIndex) {
+        return (int) (memberIndex % 100);
+    }
+
+    int teamIndex(long memberIndex, SplittableRandom random) {
+        if (distribution == TeamDistribution.SKEWED) {
+            double r = random.nextDouble();
+            return (int) (teams * r * r * r); // 0에 가까운 팀일수록 많이 배정된다.
+        }
+        return (int) (memberIndex % teams);
+    }
+
+}
@@ -0,0 +1,201 @@
+package koo.basicquerydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import koo.basicquerydsl.dto.TeamAgeStats;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.entity.QTeam;
+import koo.basicquerydsl.repository.support.CommittedEntityProjection;
+import koo.basicquerydsl.repository.support.DataChangeTracker;
+import koo.basicquerydsl.repository.support.MemberState;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+
+/**
+ * 팀별 나이 통계를 메모리에 들고 있다가 groupBy(team.name) 집계(count/sum/avg/min/max)와 나이 범위 개수를 DB 없이 돌려준다.
+ * - 팀마다 나이 히스토그램(AgeHistogram) 하나, 범위 개수는 누적 합(Fenwick 트리)으로 구한다.
+ * - 커밋된 엔티티 변경으로 바로 갱신하고, 벌크 연산 후와 주기적으로(member.statistics.reconcile-interval-ms) DB에서 다시 만든다. (CommittedEntityProjection)
+ * - 처음 만들어지기 전에는 isReady()가 false이므로 호출한 쪽은 DB 집계를 사용해야 한다.
+ * - member.statistics.enabled=true일 때만 만든다. 켜면 모든 트랜잭션의 Member, Team 쓰기가 post-commit 처리 대상이 된다. (CommittedEntityChangeListener)
+ */
+@Service
+@ConditionalOnProperty(prefix = "member.statistics", name = "enabled", havingValue = "true")
+public class TeamAgeStatistics extends CommittedEntityProjection<TeamAgeStatistics.Snapshot> {
+
+    private static final long NO_TEAM = -1L; // 팀이 없는 회원 (전체 집계에만 포함)
+
+    private final JPAQueryFactory queryFactory;
+    private final QMember member = QMember.member;
+    private final QTeam team = QTeam.team;
+
+    public TeamAgeStatistics(EntityManager em, PlatformTransactionManager transactionManager, DataChangeTracker dataChangeTracker,
+                             @Qualifier("projectionRebuildScheduler") TaskScheduler scheduler,
+                             @Value("${member.statistics.reconcile-interval-ms:300000}") long reconcileIntervalMillis) {
+        super(transactionManager, dataChangeTracker, scheduler, reconcileIntervalMillis, false);
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    public Optional<TeamAgeStats> team(String teamName) {
+        return read(current -> {
+            Long teamId = current.teamIds.get(teamName);
+            if (teamId == null) {
+                return Optional.empty();
+            }
+            return Optional.of(stats(teamName, current.find(teamId)));
+        });
+    }
+
+    public List<TeamAgeStats> teams() { // 회원이 있는 팀만 팀 이름 순서로 (member join team groupBy team.name과 같다.)
+        return read(current -> {
+            List<TeamAgeStats> result = new ArrayList<>();
+            for (Map.Entry<String, Long> entry : current.teamIds.entrySet()) {
+                AgeHistogram histogram = current.find(entry.getValue());
+                if (histogram.count() > 0) {
+                    result.add(stats(entry.getKey(), histogram));
+                }
+            }
+            return result;
+        });
+    }
+
+    public TeamAgeStats total() { // 팀이 없는 회원도 포함
+        return read(current -> stats(null, current.total));
+    }
+
+    public long countByAge(int ageGoe, int ageLoe) {
+        return read(current -> current.total.countBetween(ageGoe, ageLoe));
+    }
+
+    public long countByAge(String teamName, int ageGoe, int ageLoe) { // 없는 팀이면 0
+        return read(current -> {
+            Long teamId = current.teamIds.get(teamName);
+            return teamId != null ? current.find(teamId).countBetween(ageGoe, ageLoe) : 0L;
+        });
+    }
+
+    @Override
+    public void memberSaved(MemberState before, MemberState after) {
+        if (before != null && Objects.equals(before.getTeamId(), after.getTeamId()) && before.getAge() == after.getAge()) {
+            return; // 이름만 바뀐 경우
+        }
+
+        apply(current -> (before == null || current.remove(before)) && current.add(after));
+    }
+
+    @Override
+    public void memberDeleted(MemberState before) {
+        apply(current -> current.remove(before));
+    }
+
+    @Override
+    public void teamSaved(Long teamId, String name) {
+        apply(current -> {
+            current.putTeam(teamId, name);
+            return true;
+        });
+    }
+
+    @Override
+    public void teamDeleted(Long teamId) {
+        apply(current -> {
+            current.removeTeam(teamId);
+            return true;
+        });
+    }
+
+    @Override
+    protected Snapshot load() {
+        Snapshot loaded = new Snapshot();
+
+        List<Tuple> teams = queryFactory
+                .select(team.id, team.name)
+                .from(team)
+                .fetch();
+        for (Tuple row : teams) {
+            loaded.putTeam(row.get(team.id), row.get(team.name));
+        }
+
+        List<Tuple> ages = queryFactory
+                .select(team.id, member.age, member.count())
+                .from(member)
+                .leftJoin(member.team, team) // 팀이 없는 회원도 전체 집계에 포함
+                .groupBy(team.id, member.age)
+                .fetch();
+        for (Tuple row : ages) {
+            Long teamId = row.get(team.id);
+            loaded.add(teamId != null ? teamId : NO_TEAM, row.get(member.age), row.get(member.count()));
+        }
+
+        return loaded;
+    }
+
+    private static TeamAgeStats stats(String teamName, AgeHistogram histogram) {
+        long count = histogram.count();
+        Double avg = count > 0 ? (double) histogram.sum() / count : null;
+        return new TeamAgeStats(teamName, count, histogram.sum(), avg, histogram.min(), histogram.max());
+    }
+
+    static class Snapshot { // extends 절에서 쓰므로 private이 아니다.
+
+        private static final AgeHistogram EMPTY = new AgeHistogram();
+
+        private final Map<Long, AgeHistogram> histograms = new HashMap<>();
+        private final AgeHistogram total = new AgeHistogram();
+        private final Map<Long, String> teamNames = new HashMap<>();
+        private final SortedMap<String, Long> teamIds = new TreeMap<>();
+
+        AgeHistogram find(long teamId) { // 읽기 락에서 호출하므로 맵을 바꾸지 않는다.
+            return histograms.getOrDefault(teamId, EMPTY);
+        }
+
+        AgeHistogram histogram(long teamId) {
+            return histograms.computeIfAbsent(teamId, id -> new AgeHistogram());
+        }
+
+        void add(long teamId, int age, long n) {
+            histogram(teamId).add(age, n);
+            total.add(age, n);
+        }
+
+        boolean add(MemberState state) {
+            add(teamKey(state), state.getAge(), 1);
+            return true;
+        }
+
+        boolean remove(MemberState state) {
+            AgeHistogram histogram = histograms.get(teamKey(state));
+            return histogram != null && histogram.remove(state.getAge()) && total.remove(state.getAge());
+        }
+
+        void putTeam(Long teamId, String name) {
+            String previous = teamNames.put(teamId, name);
+            if (previous != null) { // 팀 이름 변경
+                teamIds.remove(previous);
+            }
+            if (name != null) {
+                teamIds.put(name, teamId);
+            }
+        }
+
+        void removeTeam(Long teamId) {
+            String name = teamNames.remove(teamId);
+            if (name != null) {
+                teamIds.remove(name);
+            }
+            histograms.remove(teamId); // 회원이 남아 있으면 외래 키 때문에 삭제되지 않으므로 비어 있다.
+        }
+
+        private static long teamKey(MemberState state) {
+            return state.getTeamId() != null ? state.getTeamId() : NO_TEAM;
+        }
+
+    }
+
+}
@@ -0,0 +1,137 @@
+package koo.basicquerydsl.controller;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AsyncSearchDispatcherTest {
+
+    static volatile CountDownLatch slowSearchRelease = new CountDownLatch(0);
+
+    @Autowired
+    AsyncSearchDispatcher asyncSearchDispatcher;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void queueLimit() throws InterruptedException { // 엔드포인트별 한도(테스트 설정 queue-limit.default: 2)를 넘으면 바로 거절
+        CountDownLatch release = new CountDownLatch(1);
+
+        DeferredResult<String> first = asyncSearchDispatcher.dispatch("queueLimit", () -> await(release));
+        DeferredResult<String> second = asyncSearchDispatcher.dispatch("queueLimit", () -> await(release));
+
+        Assertions.assertThatThrownBy(() -> asyncSearchDispatcher.dispatch("queueLimit", () -> "third"))
+                .isInstanceOf(AsyncSearchRejectedException.class);
+        Assertions.assertThat(asyncSearchDispatcher.dispatch("otherEndpoint", () -> "other")).isNotNull(); // 다른 엔드포인트는 영향 없음
+
+        release.countDown();
+
+        Assertions.assertThat(waitResult(first)).isEqualTo("done");
+        Assertions.assertThat(waitResult(second)).isEqualTo("done");
+        Assertions.assertThat(asyncSearchDispatcher.availablePermits("queueLimit")).isEqualTo(2);
+    }
+
+    @Test
+    public void failure() throws InterruptedException { // 검색 중 예외는 그대로 에러 결과가 된다. (컨트롤러의 @ExceptionHandler로 처리)
+        DeferredResult<String> result = asyncSearchDispatcher.dispatch("failure", () -> {
+            throw new IllegalArgumentException("잘못된 조건");
+        });
+
+        Assertions.assertThat(waitResult(result)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void timeoutKeepsPermitUntilWorkerExits() throws Exception { // 제한 시간 초과로 응답해도 작업 스레드가 끝날 때까지는 한도를 잡고 있다.
+        slowSearchRelease = new CountDownLatch(1);
+        try {
+            timeOut(mockMvc.perform(get("/test/async-search/slow")).andExpect(request().asyncStarted()).andReturn());
+            timeOut(mockMvc.perform(get("/test/async-search/slow")).andExpect(request().asyncStarted()).andReturn());
+
+            Assertions.assertThat(asyncSearchDispatcher.availablePermits("slow")).isZero();
+            Assertions.assertThatThrownBy(() -> asyncSearchDispatcher.dispatch("slow", () -> "third"))
+                    .isInstanceOf(AsyncSearchRejectedException.class);
+        } finally {
+            slowSearchRelease.countDown();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (asyncSearchDispatcher.availablePermits("slow") < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertThat(asyncSearchDispatcher.availablePermits("slow")).isEqualTo(2);
+    }
+
+    private static void timeOut(MvcResult result) throws IOException { // 서블릿 컨테이너의 비동기 제한 시간 초과를 흉내낸다.
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        Assertions.assertThat(result.getAsyncResult()).isInstanceOf(AsyncSearchRejectedException.class);
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+
+    private static Object waitResult(DeferredResult<?> result) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!result.hasResult() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return result.getResult();
+    }
+
+    @TestConfiguration
+    static class SlowSearchConfig {
+
+        @Bean
+        SlowSearchController slowSearchController(AsyncSearchDispatcher asyncSearchDispatcher) {
+            return new SlowSearchController(asyncSearchDispatcher);
+        }
+    }
+
+    @RequestMapping("/test/async-search") // @RestController로 하면 컴포넌트 스캔에 잡혀 다른 테스트의 컨텍스트에도 등록된다.
+    @ResponseBody
+    static class SlowSearchController {
+
+        private final AsyncSearchDispatcher asyncSearchDispatcher;
+
+        SlowSearchController(AsyncSearchDispatcher asyncSearchDispatcher) {
+            this.asyncSearchDispatcher = asyncSearchDispatcher;
+        }
+
+        @GetMapping("/slow")
+        public DeferredResult<String> slow() { // 취소되어도 쿼리가 아닌 곳에서 계속 도는 검색
+            return asyncSearchDispatcher.dispatch("slow", () -> await(slowSearchRelease));
+        }
+    }
+
+}
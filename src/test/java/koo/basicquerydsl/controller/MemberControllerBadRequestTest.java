@@ -0,0 +1,53 @@
+package koo.basicquerydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 잘못된 요청 값(InvalidSearchRequestException)만 400으로 응답하는지 확인한다. (member.full-text.enabled는 테스트 설정에서 꺼져 있다.)
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerBadRequestTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    public void invalidCursor() throws Exception {
+        mockMvc.perform(get("/v4/members").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("잘못된 커서입니다. cursor=not-a-cursor"));
+    }
+
+    @Test
+    public void invalidSize() throws Exception {
+        mockMvc.perform(get("/v4/members").param("size", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(startsWith("size는 1 이상")));
+    }
+
+    @Test
+    public void invalidUsernamePrefix() throws Exception {
+        mockMvc.perform(get("/v2/members").param("usernamePrefix", "￿"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void fullTextDisabled() throws Exception {
+        mockMvc.perform(get("/v1/members").param("q", "member1"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("전문 검색(q)을 지원하지 않습니다."));
+    }
+
+}
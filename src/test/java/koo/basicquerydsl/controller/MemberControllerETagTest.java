@@ -0,0 +1,153 @@
+package koo.basicquerydsl.controller;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.entity.QTeam;
+import koo.basicquerydsl.entity.Team;
+import koo.basicquerydsl.monitoring.SqlStatementScope;
+import koo.basicquerydsl.support.SqlStatementCountExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 데이터 버전이 커밋으로 바뀌어야 하므로 @Transactional 없이 실행하고 끝나면 직접 지운다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ExtendWith(SqlStatementCountExtension.class)
+class MemberControllerETagTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    TransactionTemplate tx;
+    JPAQueryFactory queryFactory;
+    QMember member = QMember.member;
+    QTeam team = QTeam.team;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        queryFactory = new JPAQueryFactory(em);
+
+        tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamB));
+            return null;
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+            return null;
+        });
+    }
+
+    @Test
+    public void notModifiedWithoutQuery(SqlStatementScope sqlStatements) throws Exception {
+        String etag = etag("/v1/members?teamName=teamA");
+        assertThat(etag).startsWith("W/\"");
+
+        sqlStatements.reset();
+        mockMvc.perform(get("/v1/members").param("teamName", "teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        assertThat(sqlStatements.getStatements()).isZero();
+    }
+
+    @Test
+    public void otherTeamChangeKeepsETag() throws Exception { // teamB 회원이 바뀌어도 teamA 조건 응답의 ETag는 그대로, 전체 검색은 바뀐다.
+        String teamA = etag("/v1/members?teamName=teamA");
+        String all = etag("/v1/members");
+
+        tx.execute(status -> {
+            fetchMemberWithTeam("member2").setAge(21);
+            return null;
+        });
+
+        assertThat(etag("/v1/members?teamName=teamA")).isEqualTo(teamA);
+        assertThat(etag("/v1/members")).isNotEqualTo(all);
+        mockMvc.perform(get("/v2/members").param("teamName", "teamA").header(HttpHeaders.IF_NONE_MATCH, teamA))
+                .andExpect(status().isNotModified());
+
+        tx.execute(status -> {
+            fetchMemberWithTeam("member1").setAge(11);
+            return null;
+        });
+
+        assertThat(etag("/v1/members?teamName=teamA")).isNotEqualTo(teamA);
+    }
+
+    @Test
+    public void movedMemberChangesBothTeams() throws Exception {
+        String teamA = etag("/v1/members?teamName=teamA");
+        String teamB = etag("/v1/members?teamName=teamB");
+
+        tx.execute(status -> {
+            Team moveTo = queryFactory.selectFrom(team).where(team.name.eq("teamB")).fetchOne();
+            fetchMemberWithTeam("member1").changeTeam(moveTo);
+            return null;
+        });
+
+        assertThat(etag("/v1/members?teamName=teamA")).isNotEqualTo(teamA);
+        assertThat(etag("/v1/members?teamName=teamB")).isNotEqualTo(teamB);
+    }
+
+    @Test
+    public void bulkUpdateChangesEveryTeam() throws Exception { // 벌크 연산은 어느 팀이 바뀌었는지 모른다.
+        String teamA = etag("/v1/members?teamName=teamA");
+
+        tx.execute(status -> queryFactory.update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.username.eq("member2"))
+                .execute());
+
+        assertThat(etag("/v1/members?teamName=teamA")).isNotEqualTo(teamA);
+    }
+
+    private String etag(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private Member fetchMemberWithTeam(String username) { // 팀을 프록시가 아닌 엔티티로 읽어야 팀 이름으로 버전을 올린다.
+        return queryFactory.selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(member.username.eq(username))
+                .fetchOne();
+    }
+
+}
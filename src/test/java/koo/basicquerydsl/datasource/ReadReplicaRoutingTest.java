@@ -0,0 +1,167 @@
+package koo.basicquerydsl.datasource;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.repository.MemberQueryDslRepository;
+import koo.basicquerydsl.repository.MemberSprinDataJpaRepository;
+import koo.basicquerydsl.repository.support.MemberCountCache;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * 로컬 H2 DB 두 개(원본, 복제본)로 라우팅을 확인한다.
+ * - 두 DB 사이에 실제 복제는 없으므로 replicate()로 원본 전체를 복제본에 복사해서 복제가 따라잡은 상태를 만든다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "datasource.replica.username=sa",
+        "datasource.replica.password=",
+        "datasource.replica.read-after-write-ms=0" // 쓰기 직후에도 복제본을 읽어서 복제 지연을 그대로 보이게
+})
+class ReadReplicaRoutingTest {
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource;
+
+    @Autowired
+    ReplicaLagGuard replicaLagGuard;
+
+    @Autowired
+    MemberSprinDataJpaRepository memberSprinDataJpaRepository;
+
+    @Autowired
+    MemberQueryDslRepository memberQueryDslRepository;
+
+    @Autowired
+    MemberCountCache memberCountCache;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @BeforeEach
+    public void before() throws IOException {
+        replicate(); // Hibernate가 원본에 만든 테이블을 복제본에도
+    }
+
+    @AfterEach
+    public void after() {
+        memberSprinDataJpaRepository.deleteAllInBatch();
+        memberCountCache.clear();
+        emf.getCache().evictAll();
+        replicaLagGuard.recordLag(Duration.ZERO);
+    }
+
+    @Test
+    public void readOnlyFromReplica() throws IOException {
+        memberSprinDataJpaRepository.save(new Member("member1", 10)); // 쓰기는 원본
+
+        Assertions.assertThat(memberQueryDslRepository.findByUsername("member1")).isEmpty(); // 아직 복제되지 않은 복제본에서 읽는다.
+        Assertions.assertThat(new JdbcTemplate(primaryDataSource).queryForObject("select count(*) from member", Long.class)).isEqualTo(1);
+
+        replicate();
+
+        Assertions.assertThat(memberQueryDslRepository.findByUsername("member1")).hasSize(1);
+    }
+
+    @Test
+    public void lagFallbackToPrimary() {
+        memberSprinDataJpaRepository.save(new Member("member1", 10));
+
+        replicaLagGuard.recordLag(Duration.ofSeconds(10)); // max-lag(기본 1초)보다 늦으면 원본을 읽는다.
+        Assertions.assertThat(memberQueryDslRepository.findByUsername("member1")).hasSize(1);
+
+        replicaLagGuard.recordLag(null); // 지연을 알 수 없을 때도 원본
+        Assertions.assertThat(memberQueryDslRepository.findByUsername("member1")).hasSize(1);
+
+        replicaLagGuard.recordLag(Duration.ZERO);
+        Assertions.assertThat(memberQueryDslRepository.findByUsername("member1")).isEmpty();
+    }
+
+    @Test
+    public void cacheFilledFromPrimary() { // 복제 지연 중에도 현재 버전으로 저장되는 값은 원본에서 읽는다.
+        memberSprinDataJpaRepository.save(new Member("member1", 10));
+
+        long count = memberCountCache.get(condition("member1"), () -> memberQueryDslRepository.findByUsername("member1").size());
+        Assertions.assertThat(count).isEqualTo(1);
+        Assertions.assertThat(memberCountCache.get(condition("member1"), () -> -1L)).isEqualTo(1); // 저장된 값
+    }
+
+    @Test
+    public void cacheNotFilledInReplicaTransaction() { // 이미 복제본 커넥션을 쓰는 트랜잭션에서 읽은 값은 저장하지 않는다.
+        memberSprinDataJpaRepository.save(new Member("member1", 10));
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long count = readOnly.execute(status -> {
+            Assertions.assertThat(memberQueryDslRepository.findByUsername("member1")).isEmpty(); // 복제본
+            return memberCountCache.get(condition("member1"), () -> memberQueryDslRepository.findByUsername("member1").size());
+        });
+
+        Assertions.assertThat(count).isZero();
+        Assertions.assertThat(memberCountCache.get(condition("member1"), () -> 1L)).isEqualTo(1); // 저장되지 않아 다시 조회한다.
+    }
+
+    @Test
+    public void secondLevelCacheNotFilledFromReplica() throws IOException {
+        Long id = memberSprinDataJpaRepository.save(new Member("member1", 10)).getId();
+        replicate();
+        new JdbcTemplate(primaryDataSource).update("update member set age = 20 where member_id = ?", id); // 아직 복제되지 않은 변경
+        emf.getCache().evictAll();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        int age = readOnly.execute(status -> em.find(Member.class, id).getAge());
+
+        Assertions.assertThat(age).isEqualTo(10); // 복제본의 이전 값
+        Assertions.assertThat(emf.getCache().contains(Member.class, id)).isFalse(); // 다음 조회가 2차 캐시에서 이전 값을 읽지 않는다.
+    }
+
+    private static MemberSearchCondition condition(String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        return condition;
+    }
+
+    private void replicate() throws IOException {
+        File script = File.createTempFile("replica", ".sql");
+        try {
+            new JdbcTemplate(primaryDataSource).execute("script to '" + script.getAbsolutePath() + "'");
+            JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+            replica.execute("drop all objects");
+            replica.execute("runscript from '" + script.getAbsolutePath() + "'");
+        } finally {
+            script.delete();
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package koo.basicquerydsl.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 스프링 ObjectMapper(@JsonComponent 등록)의 출력이 기본 BeanSerializer(new ObjectMapper())와 같은지 비교한다.
+ */
+@JsonTest
+class MemberJsonSerializersTest {
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    ObjectMapper reflective = new ObjectMapper();
+
+    @Test
+    public void registered() throws Exception {
+        assertThat(objectMapper.getSerializerProviderInstance().findValueSerializer(MemberTeamDto.class))
+                .isInstanceOf(MemberJsonSerializers.MemberTeamDtoSerializer.class);
+        assertThat(objectMapper.getSerializerProviderInstance().findValueSerializer(MemberDto.class))
+                .isInstanceOf(MemberJsonSerializers.MemberDtoSerializer.class);
+    }
+
+    @Test
+    public void memberTeamDto() throws Exception {
+        List<MemberTeamDto> rows = Arrays.asList(
+                new MemberTeamDto(1L, "member1", 10, 100L, "teamA"),
+                new MemberTeamDto(2L, "회원 \"2\"\n", 20, null, null), // 팀 없는 회원, 이스케이프할 문자
+                new MemberTeamDto(3L, null, 0, 101L, "팀B"));
+
+        String json = objectMapper.writeValueAsString(rows);
+
+        assertThat(json).isEqualTo(reflective.writeValueAsString(rows));
+        assertThat(json).startsWith("[{\"memberId\":1,\"username\":\"member1\",\"age\":10,\"teamId\":100,\"teamName\":\"teamA\"}");
+    }
+
+    @Test
+    public void memberDto() throws Exception {
+        List<MemberDto> rows = Arrays.asList(new MemberDto("member1", 10), new MemberDto(null, 20));
+
+        assertThat(objectMapper.writeValueAsString(rows)).isEqualTo(reflective.writeValueAsString(rows));
+    }
+
+}
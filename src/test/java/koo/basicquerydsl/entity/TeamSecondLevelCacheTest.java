@@ -0,0 +1,148 @@
+package koo.basicquerydsl.entity;
+
+import koo.basicquerydsl.repository.TeamJpaRepository;
+import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * fetchJoinNo처럼 회원을 조회한 뒤 지연 로딩으로 팀에 접근하는 패턴에서 2차 캐시 효과 측정
+ * - 2차 캐시는 커밋된 데이터만 공유하므로 @Transactional 없이 트랜잭션을 직접 나눠서 실행하고 끝나면 직접 지운다.
+ */
+@SpringBootTest
+class TeamSecondLevelCacheTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamJpaRepository teamJpaRepository;
+
+    TransactionTemplate tx;
+    Statistics statistics;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        tx.execute(status -> {
+            for (int t = 0; t < 10; t++) {
+                Team team = new Team("team" + t);
+                em.persist(team);
+                for (int i = 0; i < 10; i++) {
+                    em.persist(new Member("member" + t + "_" + i, i, team));
+                }
+            }
+            return null;
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+            return null;
+        });
+        emf.getCache().evictAll();
+    }
+
+    @Test
+    public void lazyTeamAccess() {
+        emf.getCache().evictAll();
+        Measurement cold = accessTeamsThroughMembers();
+        Measurement warm = accessTeamsThroughMembers();
+
+        System.out.println("2차 캐시 미적용(cold) = " + cold);
+        System.out.println("2차 캐시 적용(warm) = " + warm);
+
+        Assertions.assertThat(cold.statements).isEqualTo(1 + 10); // 회원 목록 1번 + 팀마다 1번 (N+1)
+        Assertions.assertThat(warm.statements).isEqualTo(1); // 팀은 모두 2차 캐시에서
+    }
+
+    @Test
+    public void findByName() {
+        tx.execute(status -> teamJpaRepository.findByName("team3")); // 캐시에 올리기
+
+        long before = statistics.getPrepareStatementCount();
+        Team team = tx.execute(status -> teamJpaRepository.findByName("team3").get());
+
+        Assertions.assertThat(team.getName()).isEqualTo("team3");
+        Assertions.assertThat(statistics.getPrepareStatementCount()).isEqualTo(before); // 이름 -> id, id -> 팀 모두 2차 캐시
+        Assertions.assertThat(statistics.getNaturalIdCacheHitCount()).isPositive();
+    }
+
+    @Test
+    public void movedMemberEvictsCollectionCache() { // 팀 이동 후 새 세션에서 이전 팀의 members가 캐시된 옛 목록이면 안 된다.
+        Long oldTeamId = tx.execute(status -> teamJpaRepository.findByName("team0").get().getId());
+        Long newTeamId = tx.execute(status -> teamJpaRepository.findByName("team1").get().getId());
+        tx.execute(status -> em.find(Team.class, oldTeamId).getMembers().size()); // 컬렉션 캐시에 올리기
+        tx.execute(status -> em.find(Team.class, newTeamId).getMembers().size());
+
+        tx.execute(status -> {
+            Member moved = em.createQuery("select m from Member m where m.username = 'member0_0'", Member.class).getSingleResult();
+            moved.changeTeam(em.find(Team.class, newTeamId));
+            return null;
+        });
+
+        List<String> oldTeamMembers = tx.execute(status -> usernames(em.find(Team.class, oldTeamId)));
+        List<String> newTeamMembers = tx.execute(status -> usernames(em.find(Team.class, newTeamId)));
+        Assertions.assertThat(oldTeamMembers).hasSize(9).doesNotContain("member0_0");
+        Assertions.assertThat(newTeamMembers).hasSize(11).contains("member0_0");
+    }
+
+    private static List<String> usernames(Team team) {
+        return team.getMembers().stream().map(Member::getUsername).collect(Collectors.toList());
+    }
+
+    private Measurement accessTeamsThroughMembers() {
+        long statementsBefore = statistics.getPrepareStatementCount();
+        long start = System.nanoTime();
+
+        tx.execute(status -> {
+            List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+            for (Member member : members) {
+                member.getTeam().getName(); // 지연 로딩 (fetchJoinNo)
+            }
+            return null;
+        });
+
+        return new Measurement(statistics.getPrepareStatementCount() - statementsBefore, System.nanoTime() - start);
+    }
+
+    private static class Measurement {
+        private final long statements;
+        private final long elapsedNanos;
+
+        Measurement(long statements, long elapsedNanos) {
+            this.statements = statements;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "statements=" + statements + ", elapsedMicros=" + elapsedNanos / 1000;
+        }
+    }
+
+}
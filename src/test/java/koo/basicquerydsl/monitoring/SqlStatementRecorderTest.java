@@ -0,0 +1,47 @@
+package koo.basicquerydsl.monitoring;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+class SqlStatementRecorderTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    SqlStatementRecorder recorder = new SqlStatementRecorder(registry, 5, Duration.ofSeconds(1));
+
+    @Test
+    public void repositoryLatency() { // 리포지토리 구간은 메서드, 검색 필드, 단계별로 기록된다.
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+
+        SqlStatementScope scope = recorder.begin("repository", "MemberQueryDslRepository.searchByWhereParameter");
+        scope.describe(RepositorySqlStatsAspect.searchFields(condition), condition.toString());
+        recorder.onStatement("select member0_.member_id from member member0_");
+        recorder.onExecuted("select member0_.member_id from member member0_", TimeUnit.MILLISECONDS.toNanos(3));
+        recorder.onRow();
+        recorder.onResultSetClosed();
+        recorder.end(scope);
+
+        Timer execute = registry.get("repository.query.latency")
+                .tags("method", "MemberQueryDslRepository.searchByWhereParameter", "fields", "teamName,ageGoe", "phase", "execute")
+                .timer();
+        Assertions.assertThat(execute.count()).isEqualTo(1);
+        Assertions.assertThat(execute.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(3.0);
+        Assertions.assertThat(registry.get("repository.query.latency").tag("phase", "total").timer().count()).isEqualTo(1);
+        Assertions.assertThat(registry.get("sql.execute.time")
+                .tags("kind", "select", "method", "MemberQueryDslRepository.searchByWhereParameter")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void noSearchCondition() {
+        Assertions.assertThat(RepositorySqlStatsAspect.searchFields(new MemberSearchCondition())).isEqualTo("none");
+    }
+
+}
@@ -0,0 +1,36 @@
+package koo.basicquerydsl.monitoring;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SqlStatementScopeTest {
+
+    @Test
+    public void sameShape() { // 파라미터 값, in절 개수, 주석만 다른 SQL은 같은 모양
+        Assertions.assertThat(SqlStatementScope.shape("/* load Team */ select team0_.team_id from team team0_ where team0_.team_id=1"))
+                .isEqualTo(SqlStatementScope.shape("select team0_.team_id from team team0_\n where team0_.team_id=2"));
+        Assertions.assertThat(SqlStatementScope.shape("select * from member where member_id in (?, ?, ?)"))
+                .isEqualTo("select * from member where member_id in (?)");
+    }
+
+    @Test
+    public void suspectedNPlusOne() {
+        SqlStatementScope scope = new SqlStatementScope("test", "suspectedNPlusOne");
+        scope.onStatement("select member0_.member_id from member member0_");
+        for (int i = 0; i < 5; i++) {
+            scope.onStatement("select team0_.name from team team0_ where team0_.team_id=?");
+        }
+
+        Assertions.assertThat(scope.getStatements()).isEqualTo(6);
+        Assertions.assertThat(scope.suspectedNPlusOne(5)).containsOnlyKeys("select team0_.name from team team0_ where team0_.team_id=?");
+    }
+
+    @Test
+    public void kind() { // count 쿼리는 다른 select와 따로 본다.
+        Assertions.assertThat(SqlStatementScope.kind("/* select count(member1) from Member member1 */ select count(member0_.member_id) as col_0_0_ from member member0_")).isEqualTo("count");
+        Assertions.assertThat(SqlStatementScope.kind("select member0_.member_id as col_0_0_ from member member0_")).isEqualTo("select");
+        Assertions.assertThat(SqlStatementScope.kind("update member set age=? where member_id=?")).isEqualTo("update");
+        Assertions.assertThat(SqlStatementScope.kind("call next value for member_seq")).isEqualTo("other");
+    }
+
+}
@@ -0,0 +1,101 @@
+package koo.basicquerydsl.repository;
+
+import koo.basicquerydsl.dto.MemberColumns;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.Team;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+@Transactional
+class MemberColumnarRepositoryTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberColumnarRepository memberColumnarRepository;
+
+    @Autowired
+    MemberQueryDslRepository memberQueryDslRepository;
+
+    @Test
+    public void fetchColumns() { // searchByWhereParameter와 같은 회원, 팀 이름은 사전으로
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 40; i++) { // 초기 배열 크기(16)보다 많이
+            em.persist(new Member("member" + i, i, i % 3 == 0 ? null : (i % 3 == 1 ? teamA : teamB)));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(5);
+        condition.setAgeLoe(35);
+
+        MemberColumns columns = memberColumnarRepository.fetchColumns(condition);
+
+        Assertions.assertThat(columns.getTeamNames()).containsExactlyInAnyOrder("teamA", "teamB");
+        List<MemberTeamDto> rows = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            rows.add(columns.row(i));
+        }
+        Assertions.assertThat(rows)
+                .usingElementComparatorIgnoringFields("username")
+                .containsExactlyInAnyOrderElementsOf(memberQueryDslRepository.searchByWhereParameter(condition));
+    }
+
+    @Test
+    public void teamCreatedBetweenMembers() { // 회원 사이에 만들어진 팀도 스캔 중에 처음 볼 때 사전에 들어간다. (팀을 먼저 따로 읽지 않는다.)
+        em.persist(new Team("unused"));
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 20; i++) { // 초기 사전 크기(16)보다 많이
+            Team team = new Team("team" + i);
+            em.persist(team);
+            teams.add(team);
+            em.persist(new Member("member" + i, i, team));
+        }
+        for (int i = teams.size() - 1; i >= 0; i--) { // 팀 id 내림차순으로도 나오게
+            em.persist(new Member("late" + i, i, teams.get(i)));
+        }
+
+        MemberColumns columns = memberColumnarRepository.fetchColumns(new MemberSearchCondition());
+
+        Assertions.assertThat(columns.getTeamNames()).hasSize(20).doesNotContain("unused");
+        List<MemberTeamDto> rows = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            rows.add(columns.row(i));
+        }
+        Assertions.assertThat(rows)
+                .usingElementComparatorIgnoringFields("username")
+                .containsExactlyInAnyOrderElementsOf(memberQueryDslRepository.searchByWhereParameter(new MemberSearchCondition()));
+    }
+
+    @Test
+    public void fetchColumnsByTeamName() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, null));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        MemberColumns columns = memberColumnarRepository.fetchColumns(condition);
+
+        Assertions.assertThat(columns.size()).isEqualTo(1);
+        Assertions.assertThat(columns.getAges()[0]).isEqualTo(10);
+        Assertions.assertThat(columns.teamName(0)).isEqualTo("teamA");
+    }
+
+}
@@ -0,0 +1,126 @@
+package koo.basicquerydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import koo.basicquerydsl.dto.MemberFullTextPage;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.entity.QTeam;
+import koo.basicquerydsl.entity.Team;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.full-text.enabled=true")
+@Transactional
+class MemberFullTextRepositoryTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberFullTextRepository memberFullTextRepository;
+
+    @BeforeEach
+    public void before() {
+        Team seoul = new Team("seoul lions");
+        Team busan = new Team("busan giants");
+        em.persist(seoul);
+        em.persist(busan);
+
+        em.persist(new Member("kim seoul", 10, busan));
+        em.persist(new Member("lee", 20, seoul));
+        em.persist(new Member("park", 30, busan));
+        em.persist(new Member("seoul-choi", 40, null)); // 팀 없는 회원도 회원명으로 찾는다.
+    }
+
+    @Test
+    public void rankedByUsernameThenTeamName() { // 회원명 일치(2점)가 팀명 일치(1점)보다 먼저
+        List<MemberTeamDto> result = memberFullTextRepository.search("Seoul", new MemberSearchCondition());
+
+        assertThat(result).extracting("username").containsExactly("kim seoul", "seoul-choi", "lee");
+    }
+
+    @Test
+    public void moreMatchedWordsFirst() {
+        List<MemberTeamDto> result = memberFullTextRepository.search("kim busan", new MemberSearchCondition());
+
+        assertThat(result).extracting("username").containsExactly("kim seoul", "park"); // kim(2) + busan(1) > busan(1)
+    }
+
+    @Test
+    public void withSearchCondition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+
+        List<MemberTeamDto> result = memberFullTextRepository.search("seoul", condition);
+
+        assertThat(result).extracting("username").containsExactly("seoul-choi", "lee");
+    }
+
+    @Test
+    public void indexFollowsWrites() { // 엔티티 변경, 벌크 update 모두 트리거로 색인에 반영된다.
+        Member park = new JPAQueryFactory(em).selectFrom(QMember.member).where(QMember.member.username.eq("park")).fetchOne();
+        park.setUsername("park giants");
+        em.flush();
+        assertThat(memberFullTextRepository.search("giants", new MemberSearchCondition()))
+                .extracting("username").containsExactly("park giants", "kim seoul");
+
+        new JPAQueryFactory(em).update(QMember.member)
+                .set(QMember.member.username, "incheon")
+                .where(QMember.member.username.eq("lee"))
+                .execute();
+        em.clear();
+
+        assertThat(memberFullTextRepository.search("incheon", new MemberSearchCondition()))
+                .extracting("username").containsExactly("incheon");
+        assertThat(memberFullTextRepository.search("lee", new MemberSearchCondition())).isEmpty(); // 예전 단어는 빠진다.
+    }
+
+    @Test
+    public void page() { // 점수 정렬, offset/limit은 DB에서
+        MemberFullTextPage page = memberFullTextRepository.search("seoul", new MemberSearchCondition(), PageRequest.of(1, 2));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting("username").containsExactly("lee");
+        assertThat(page.isTruncated()).isFalse();
+    }
+
+    @Test
+    public void pageTeamNameMatches() { // 팀명으로 찾은 팀의 회원 중 한 페이지만 읽고, totalElements는 count 쿼리로
+        Team giants = new JPAQueryFactory(em).selectFrom(QTeam.team).where(QTeam.team.name.eq("busan giants")).fetchOne();
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("giant" + i, i, giants));
+        }
+
+        Page<MemberTeamDto> page = memberFullTextRepository.search("giants park", new MemberSearchCondition(), PageRequest.of(0, 3));
+
+        assertThat(page.getTotalElements()).isEqualTo(12);
+        assertThat(page.getContent()).extracting("username").containsExactly("park", "kim seoul", "giant0"); // park(2 + 1), 나머지(1)는 member.id 순
+    }
+
+    @Test
+    public void noMatch() {
+        assertThat(memberFullTextRepository.search("daegu", new MemberSearchCondition())).isEmpty();
+        assertThat(memberFullTextRepository.search(" ,. ", new MemberSearchCondition())).isEmpty();
+    }
+
+    @Test
+    public void words() {
+        assertThat(MemberFullTextRepository.words("kim, Lee-park kim"))
+                .containsExactly("KIM", "LEE", "PARK");
+        assertThat(MemberFullTextRepository.words("a b c d e f g")).hasSize(MemberFullTextRepository.MAX_WORDS);
+    }
+
+}
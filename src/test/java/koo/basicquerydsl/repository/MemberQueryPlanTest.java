@@ -0,0 +1,165 @@
+package koo.basicquerydsl.repository;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.Team;
+import koo.basicquerydsl.support.QueryPlanChecker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * 리포지토리의 검색 메서드가 인덱스를 타는지 H2 실행 계획(EXPLAIN)으로 확인한다.
+ * - 인덱스를 지우거나 조건/조인을 바꿔서 테이블 전체를 읽게 되면 실패한다.
+ * - 검색 메서드마다 content, count 쿼리를 모두 확인한다. searchPageComplexParallel과 /async는 searchPageComplex와 같은 쿼리를 다른 스레드에서 실행하므로 따로 확인하지 않는다.
+ *   (StatementInspector는 호출한 스레드의 SQL만 모은다.) 조건 없는 findAll은 전체 조회가 목적이라 제외한다.
+ */
+@SpringBootTest(properties = "member.full-text.enabled=true") // 전문 검색 쿼리도 확인한다. (MemberFullTextRepositoryTest와 같은 설정)
+@Transactional
+class MemberQueryPlanTest {
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        public QueryPlanChecker queryPlanChecker(JdbcTemplate jdbcTemplate) {
+            return new QueryPlanChecker(jdbcTemplate);
+        }
+
+    }
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    QueryPlanChecker queryPlanChecker;
+
+    @Autowired
+    MemberQueryDslRepository memberQueryDslRepository;
+
+    @Autowired
+    MemberSprinDataJpaRepository memberSprinDataJpaRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberColumnarRepository memberColumnarRepository;
+
+    @Autowired
+    MemberFullTextRepository memberFullTextRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 20; i++) {
+            em.persist(new Member("member" + i, i * 5, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush(); // insert가 검사할 SQL에 섞이지 않게
+        em.clear();
+    }
+
+    @Test
+    public void usernameEq() { // member(username)
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        assertEverySearchUsesIndex(condition);
+        queryPlanChecker.assertIndexUsed(() -> memberSprinDataJpaRepository.findByUsername("member1"), "member");
+        queryPlanChecker.assertIndexUsed(() -> memberJpaRepository.findByUsername("member1"), "member");
+    }
+
+    @Test
+    public void teamNameEq() { // team(name) -> member(team_id, age)
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        assertEverySearchUsesIndex(condition);
+    }
+
+    @Test
+    public void teamNameAndAgeRange() { // team(name) -> member(team_id, age) 범위 조회
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(60);
+
+        assertEverySearchUsesIndex(condition);
+    }
+
+    @Test
+    public void usernamePrefix() { // member(username) 범위 조회, like 대신 >=, <
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("member1");
+
+        assertEverySearchUsesIndex(condition);
+    }
+
+    @Test
+    public void usernameIgnoreCase() { // member(username_lower), lower(username) = ? 는 인덱스를 못 쓴다.
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("MEMBER1");
+        condition.setIgnoreCase(true);
+        queryPlanChecker.assertIndexUsed(() -> memberQueryDslRepository.searchByWhereParameter(condition), "member", "team");
+
+        condition.setUsername(null);
+        condition.setUsernamePrefix("MEMBER1");
+        queryPlanChecker.assertIndexUsed(() -> memberQueryDslRepository.searchByWhereParameter(condition), "member", "team");
+        queryPlanChecker.assertIndexUsed(() -> memberQueryDslRepository.searchByCompiledQuery(condition), "member", "team");
+        queryPlanChecker.assertIndexUsed(memberColumnarRepository.sql(condition), "member", "team");
+    }
+
+    @Test
+    public void cursorSeek() { // /v4 다음 페이지, ID: member(member_id) 범위, AGE: member(age, member_id) 범위
+        MemberSearchCondition condition = new MemberSearchCondition();
+        String idCursor = MemberCursor.after(MemberCursor.SortKey.ID, new MemberTeamDto(10L, null, 50, null, null)).encode();
+        String ageCursor = MemberCursor.after(MemberCursor.SortKey.AGE, new MemberTeamDto(10L, null, 50, null, null)).encode();
+
+        queryPlanChecker.assertIndexUsed(() -> memberSprinDataJpaRepository.searchByCursor(condition, MemberCursor.SortKey.ID, idCursor, 3), "member", "team");
+        queryPlanChecker.assertIndexUsed(() -> memberSprinDataJpaRepository.searchByCursor(condition, MemberCursor.SortKey.AGE, ageCursor, 3), "member", "team");
+    }
+
+    @Test
+    public void fullText() { // 색인에서 찾은 id로 member(member_id), member(team_id, age)를 찾는다. (색인 조회는 JDBC로 직접 해서 여기에 모이지 않는다.)
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        queryPlanChecker.assertIndexUsed(() -> memberFullTextRepository.search("member1", condition, PageRequest.of(0, 3)), "member", "team"); // 회원명
+        queryPlanChecker.assertIndexUsed(() -> memberFullTextRepository.search("teamA", condition, PageRequest.of(0, 3)), "member", "team"); // 팀명, content + count
+    }
+
+    /**
+     * 검색 조건을 받는 리포지토리 메서드 모두 (페이징은 count 쿼리가 나가도록 첫 페이지를 결과보다 작게, 커서는 다음 페이지)
+     */
+    private void assertEverySearchUsesIndex(MemberSearchCondition condition) {
+        PageRequest page = PageRequest.of(0, 1);
+        String cursor = MemberCursor.after(MemberCursor.SortKey.ID, new MemberTeamDto(0L, null, 0, null, null)).encode();
+
+        if (condition.getUsernamePrefix() == null) { // searchByBuilder는 username, teamName, age 조건만 지원한다.
+            queryPlanChecker.assertIndexUsed(() -> memberQueryDslRepository.searchByBuilder(condition), "member", "team");
+        }
+        queryPlanChecker.assertIndexUsed(() -> memberQueryDslRepository.searchByWhereParameter(condition), "member", "team");
+        queryPlanChecker.assertIndexUsed(() -> memberQueryDslRepository.searchByCompiledQuery(condition), "member", "team");
+        queryPlanChecker.assertIndexUsed(() -> memberQueryDslRepository.streamByWhereParameter(condition, 10, row -> { }), "member", "team");
+        queryPlanChecker.assertIndexUsed(memberColumnarRepository.sql(condition), "member", "team");
+        queryPlanChecker.assertIndexUsed(() -> memberSprinDataJpaRepository.searchByWhereParameter(condition), "member", "team");
+        queryPlanChecker.assertIndexUsed(() -> memberSprinDataJpaRepository.searchPageSimple(condition, page), "member", "team");
+        queryPlanChecker.assertIndexUsed(() -> memberSprinDataJpaRepository.searchPageComplex(condition, page), "member", "team");
+        queryPlanChecker.assertIndexUsed(() -> memberSprinDataJpaRepository.searchPageComplex2(condition, page), "member", "team");
+        queryPlanChecker.assertIndexUsed(() -> memberSprinDataJpaRepository.searchSlice(condition, page), "member", "team");
+        queryPlanChecker.assertIndexUsed(() -> memberSprinDataJpaRepository.searchByCursor(condition, MemberCursor.SortKey.ID, cursor, 1), "member", "team");
+    }
+
+}
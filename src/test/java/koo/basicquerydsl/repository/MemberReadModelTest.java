@@ -0,0 +1,182 @@
+package koo.basicquerydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.entity.QTeam;
+import koo.basicquerydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커밋된 변경으로 갱신되는지 보려면 실제로 커밋해야 하므로 @Transactional 없이 실행하고 끝나면 직접 지운다.
+ * - 읽기 모델 결과는 항상 같은 조건의 DB 검색(searchByWhereParameter) 결과와 비교한다.
+ */
+@SpringBootTest(properties = "member.read-model.enabled=true")
+class MemberReadModelTest {
+
+    @Autowired
+    MemberReadModel memberReadModel;
+
+    @Autowired
+    MemberQueryDslRepository memberQueryDslRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    TransactionTemplate tx;
+    JPAQueryFactory queryFactory;
+    QMember member = QMember.member;
+    QTeam team = QTeam.team;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        queryFactory = new JPAQueryFactory(em);
+
+        tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            em.persist(new Member("member5", 40)); // 팀 없음
+            return null;
+        });
+        memberReadModel.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+            return null;
+        });
+    }
+
+    @Test
+    public void searchMatchesDatabase() {
+        assertSameAsDatabase(condition(null, null, null, null));
+        assertSameAsDatabase(condition("member1", null, null, null));
+        assertSameAsDatabase(condition(null, "teamB", null, null));
+        assertSameAsDatabase(condition(null, "teamC", null, null)); // 없는 팀
+        assertSameAsDatabase(condition(null, null, 20, 40));
+        assertSameAsDatabase(condition(null, null, 35, null));
+        assertSameAsDatabase(condition(null, null, null, 10));
+        assertSameAsDatabase(condition(null, "teamA", 15, 30));
+        assertSameAsDatabase(condition("member4", "teamB", 35, 40));
+        assertSameAsDatabase(condition(" ", "", null, null)); // 공백은 조건 없음
+
+        MemberSearchCondition prefix = condition(null, null, 20, null);
+        prefix.setUsernamePrefix("member");
+        assertSameAsDatabase(prefix);
+
+        MemberSearchCondition ignoreCase = condition("MEMBER2", null, null, null);
+        ignoreCase.setIgnoreCase(true);
+        assertSameAsDatabase(ignoreCase);
+        ignoreCase.setUsername(null);
+        ignoreCase.setUsernamePrefix("MEMBER");
+        assertSameAsDatabase(ignoreCase);
+    }
+
+    @Test
+    public void committedChangesAreApplied() {
+        tx.execute(status -> {
+            Member member1 = findMember("member1");
+            member1.setAge(35);
+            member1.changeTeam(findTeam("teamB")); // teamA -> teamB
+            findMember("member2").setUsername("member2-renamed");
+            findTeam("teamA").setName("teamC");
+            em.remove(findMember("member4"));
+            em.persist(new Member("member6", 60, findTeam("teamB")));
+            return null;
+        });
+
+        assertThat(memberReadModel.isStale()).isFalse();
+        assertSameAsDatabase(condition(null, null, null, null));
+        assertSameAsDatabase(condition(null, "teamB", null, null));
+        assertSameAsDatabase(condition(null, "teamC", null, null));
+        assertSameAsDatabase(condition("member2-renamed", null, null, null));
+        assertSameAsDatabase(condition(null, null, 30, 60));
+    }
+
+    @Test
+    public void strictFallsBackToDatabaseWhileWriting() {
+        tx.execute(status -> {
+            findMember("member1").setAge(99);
+            em.flush(); // update SQL 실행, 아직 커밋 전
+
+            assertThat(memberReadModel.search(condition(null, null, null, null))).isEmpty();
+            return null;
+        });
+
+        assertThat(memberReadModel.search(condition(null, null, 99, null)).get())
+                .extracting("username")
+                .containsExactly("member1");
+    }
+
+    @Test
+    public void bulkUpdateRebuildsFromDatabase() throws InterruptedException {
+        tx.execute(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+
+        for (int i = 0; i < 50 && memberReadModel.isStale(); i++) { // 벌크 연산 후 재구성은 별도 스레드에서 실행된다.
+            Thread.sleep(100);
+        }
+
+        assertThat(memberReadModel.isStale()).isFalse();
+        assertSameAsDatabase(condition(null, null, 11, 11));
+        assertSameAsDatabase(condition(null, null, null, null));
+    }
+
+    private void assertSameAsDatabase(MemberSearchCondition condition) {
+        Optional<List<MemberTeamDto>> rows = memberReadModel.search(condition);
+        List<MemberTeamDto> expected = memberQueryDslRepository.searchByWhereParameter(condition);
+
+        assertThat(rows).isPresent();
+        assertThat(rows.get()).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(rows.get()).isSortedAccordingTo((a, b) -> a.getMemberId().compareTo(b.getMemberId()));
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+
+    private Member findMember(String username) {
+        return queryFactory.selectFrom(member).where(member.username.eq(username)).fetchOne();
+    }
+
+    private Team findTeam(String name) {
+        return queryFactory.selectFrom(team).where(team.name.eq(name)).fetchOne();
+    }
+
+}
@@ -0,0 +1,135 @@
+package koo.basicquerydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.entity.QTeam;
+import koo.basicquerydsl.entity.Team;
+import koo.basicquerydsl.repository.support.CommittedEntityProjection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 파일 스냅샷 이후의 변경을 change_seq와 삭제 기록(Tombstone)으로 따라잡는지 확인한다.
+ * - 커밋해야 하므로 @Transactional 없이 실행하고 끝나면 직접 지운다. (MemberReadModelTest와 같다.)
+ */
+@SpringBootTest(properties = {
+        "member.read-model.enabled=true",
+        "member.read-model.snapshot.path=build/test-snapshots/member-read-model.snapshot"
+})
+class MemberReadModelWarmStartTest {
+
+    @Autowired
+    MemberReadModel memberReadModel;
+
+    @Autowired
+    MemberQueryDslRepository memberQueryDslRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    DataSource dataSource;
+
+    @PersistenceContext
+    EntityManager em;
+
+    TransactionTemplate tx;
+    JPAQueryFactory queryFactory;
+    QMember member = QMember.member;
+    QTeam team = QTeam.team;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        queryFactory = new JPAQueryFactory(em);
+
+        tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            return null;
+        });
+        memberReadModel.rebuild(); // 재구성 후 스냅샷을 남긴다.
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+            return null;
+        });
+    }
+
+    @Test
+    public void catchUpUpdatesAndDeletes() {
+        tx.execute(status -> {
+            findMember("member1").setAge(35);
+            findMember("member2").changeTeam(findTeam("teamB"));
+            findTeam("teamA").setName("teamC");
+            em.remove(findMember("member4"));
+            em.persist(new Member("member5", 50, findTeam("teamB")));
+            return null;
+        });
+
+        CommittedEntityProjection.WarmStart<MemberReadModel.Rows> warm = tx.execute(status -> memberReadModel.loadWarm());
+
+        assertThat(warm.isCaughtUp()).isTrue();
+        assertSameAsDatabase(warm.getState(), new MemberSearchCondition());
+        assertSameAsDatabase(warm.getState(), teamName("teamB"));
+        assertSameAsDatabase(warm.getState(), teamName("teamC"));
+    }
+
+    @Test
+    public void deleteWithoutTombstoneIsNotCaughtUp() throws SQLException { // 삭제 기록 없이 지워지면(벌크 delete, 외부 SQL) 회원 수로 알아챈다.
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("delete from member where username = 'member4'")) {
+            statement.executeUpdate();
+        }
+
+        CommittedEntityProjection.WarmStart<MemberReadModel.Rows> warm = tx.execute(status -> memberReadModel.loadWarm());
+
+        assertThat(warm.isCaughtUp()).isFalse();
+    }
+
+    private void assertSameAsDatabase(MemberReadModel.Rows rows, MemberSearchCondition condition) {
+        assertThat(rows.search(condition)).containsExactlyInAnyOrderElementsOf(memberQueryDslRepository.searchByWhereParameter(condition));
+    }
+
+    private static MemberSearchCondition teamName(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+
+    private Member findMember(String username) {
+        return queryFactory.selectFrom(member).where(member.username.eq(username)).fetchOne();
+    }
+
+    private Team findTeam(String name) {
+        return queryFactory.selectFrom(team).where(team.name.eq(name)).fetchOne();
+    }
+
+}
@@ -0,0 +1,113 @@
+package koo.basicquerydsl.repository;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.QMemberTeamDto;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.entity.QTeam;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+@SpringBootTest
+@Transactional
+class MemberSearchQueryBuilderTest {
+
+    @Autowired
+    MemberSearchQueryBuilder memberSearchQueryBuilder;
+
+    @PersistenceContext
+    EntityManager em;
+
+    QMember member = QMember.member;
+    QTeam team = QTeam.team;
+
+    @Test
+    public void countWithoutTeamName() { // teamName 조건이 없으면 count 쿼리에서 team 조인을 뺀다.
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        long before = memberSearchQueryBuilder.getTeamJoinEliminatedCount();
+
+        String jpql = memberSearchQueryBuilder.count(condition).toString();
+
+        Assertions.assertThat(jpql).doesNotContain("join");
+        Assertions.assertThat(memberSearchQueryBuilder.getTeamJoinEliminatedCount()).isEqualTo(before + 1);
+    }
+
+    @Test
+    public void countWithTeamName() { // team.name 조건이 있으면 팀이 없는 회원은 걸러지므로 inner join
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        String jpql = memberSearchQueryBuilder.count(condition).toString();
+
+        Assertions.assertThat(jpql).contains("inner join").doesNotContain("left join");
+    }
+
+    @Test
+    public void contentWithTeamIdOnly() { // member.team.id는 member 테이블의 team_id 컬럼이므로 조인이 필요 없다.
+        String jpql = memberSearchQueryBuilder.select(member.team.id, new MemberSearchCondition()).toString();
+
+        Assertions.assertThat(jpql).doesNotContain("join");
+    }
+
+    @Test
+    public void contentWithTeamName() {
+        String jpql = memberSearchQueryBuilder.select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name), new MemberSearchCondition()).toString();
+
+        Assertions.assertThat(jpql).contains("left join");
+    }
+
+    @Test
+    public void usernamePrefixAsRange() { // like 'mem%' 대신 범위 조건 (인덱스 range scan)
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("mem");
+
+        String jpql = memberSearchQueryBuilder.count(condition).toString();
+
+        Assertions.assertThat(jpql).contains("member1.username >= ?1 and member1.username < ?2").doesNotContain("like");
+    }
+
+    @Test
+    public void usernamePrefixAndIgnoreCase() {
+        em.persist(new Member("member1", 10));
+        em.persist(new Member("Member2", 20));
+        em.persist(new Member("mem%3", 30)); // 접두사의 %는 그냥 문자
+        em.persist(new Member("men4", 40));
+        em.persist(new Member("me", 50));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix("mem");
+        Assertions.assertThat(memberSearchQueryBuilder.select(member.username, condition).fetch())
+                .containsExactlyInAnyOrder("member1", "mem%3");
+
+        condition.setUsernamePrefix("mem%");
+        Assertions.assertThat(memberSearchQueryBuilder.select(member.username, condition).fetch())
+                .containsExactly("mem%3");
+
+        condition.setUsernamePrefix("MEM");
+        condition.setIgnoreCase(true); // username_lower 컬럼으로 비교
+        Assertions.assertThat(memberSearchQueryBuilder.select(member.username, condition).fetch())
+                .containsExactlyInAnyOrder("member1", "Member2", "mem%3");
+
+        condition.setUsernamePrefix(null);
+        condition.setUsername("MEMBER2");
+        Assertions.assertThat(memberSearchQueryBuilder.select(member.username, condition).fetch())
+                .containsExactly("Member2");
+    }
+
+    @Test
+    public void prefixUpperBound() {
+        Assertions.assertThat(MemberSearchQueryBuilder.prefixUpperBound("abc")).isEqualTo("abd");
+        Assertions.assertThat(MemberSearchQueryBuilder.prefixUpperBound("a\uffff")).isEqualTo("b");
+        Assertions.assertThat(MemberSearchQueryBuilder.prefixUpperBound("회원")).isEqualTo("회웑");
+        Assertions.assertThatThrownBy(() -> MemberSearchQueryBuilder.prefixUpperBound("\uffff"))
+                .isInstanceOf(InvalidSearchRequestException.class);
+    }
+
+}
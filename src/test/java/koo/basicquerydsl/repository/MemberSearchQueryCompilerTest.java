@@ -0,0 +1,71 @@
+package koo.basicquerydsl.repository;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.Team;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+@SpringBootTest
+@Transactional
+class MemberSearchQueryCompilerTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberSearchQueryCompiler memberSearchQueryCompiler;
+
+    @Autowired
+    MemberQueryDslRepository memberQueryDslRepository;
+
+    @Test
+    public void template() { // 있는 필드만 where절에 들어가고, 같은 조합이면 같은 JPQL 문자열을 쓴다.
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeLoe(40);
+        condition.setUsername(""); // 빈 문자열은 조건 없음
+
+        int fields = MemberSearchQueryCompiler.fields(condition);
+
+        Assertions.assertThat(fields).isEqualTo(MemberSearchQueryCompiler.TEAM_NAME | MemberSearchQueryCompiler.AGE_LOE);
+        Assertions.assertThat(memberSearchQueryCompiler.template(fields))
+                .endsWith("where t.name = :teamName and m.age <= :ageLoe");
+        Assertions.assertThat(memberSearchQueryCompiler.template(0)).doesNotContain("where");
+    }
+
+    @Test
+    public void sameResultAsWhereParameter() { // 64가지 조합 모두 searchByWhereParameter와 결과가 같다.
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("Member4", 40, teamB));
+        em.persist(new Member("member5", 50, null));
+
+        for (int fields = 0; fields < 64; fields++) {
+            boolean ignoreCase = (fields & MemberSearchQueryCompiler.IGNORE_CASE) != 0;
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername((fields & MemberSearchQueryCompiler.USERNAME) != 0 ? (ignoreCase ? "MEMBER3" : "member3") : null);
+            condition.setUsernamePrefix((fields & MemberSearchQueryCompiler.USERNAME_PREFIX) != 0 ? (ignoreCase ? "MEM" : "mem") : null);
+            condition.setIgnoreCase(ignoreCase);
+            condition.setTeamName((fields & MemberSearchQueryCompiler.TEAM_NAME) != 0 ? "teamB" : null);
+            condition.setAgeGoe((fields & MemberSearchQueryCompiler.AGE_GOE) != 0 ? 20 : null);
+            condition.setAgeLoe((fields & MemberSearchQueryCompiler.AGE_LOE) != 0 ? 40 : null);
+
+            Assertions.assertThat(memberQueryDslRepository.searchByCompiledQuery(condition))
+                    .as("fields=%d", fields)
+                    .containsExactlyInAnyOrderElementsOf(memberQueryDslRepository.searchByWhereParameter(condition));
+        }
+    }
+
+}
@@ -1,17 +1,23 @@
 package koo.basicquerydsl.repository;
 
+import koo.basicquerydsl.dto.MemberCursorPage;
 import koo.basicquerydsl.dto.MemberSearchCondition;
 import koo.basicquerydsl.dto.MemberTeamDto;
 import koo.basicquerydsl.entity.Member;
 import koo.basicquerydsl.entity.QMember;
 import koo.basicquerydsl.entity.Team;
+import koo.basicquerydsl.monitoring.SqlStatementScope;
+import koo.basicquerydsl.support.MaxSqlStatements;
+import koo.basicquerydsl.support.SqlStatementCountExtension;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
@@ -21,6 +27,7 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @Transactional
+@ExtendWith(SqlStatementCountExtension.class)
 class MemberSpringDataJpaRepositoryImplTest {
 
     @PersistenceContext
@@ -29,6 +36,9 @@ class MemberSpringDataJpaRepositoryImplTest {
     @Autowired
     MemberSprinDataJpaRepository memberSprinDataJpaRepository;
 
+    @Autowired
+    MemberSearchQueryBuilder memberSearchQueryBuilder;
+
     @Test
     public void searchPageSimple() {
         Team teamA = new Team("teamA");
@@ -53,4 +63,72 @@ class MemberSpringDataJpaRepositoryImplTest {
         Assertions.assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void searchPageComplex2WithoutCount() { // 첫 페이지가 페이지 크기보다 작으면 count 쿼리를 만들지도 않는다. (조인 생략 통계는 content 쿼리 하나만 센다.)
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15); // 다른 테스트에서 캐시한 totalCount와 겹치지 않는 조건
+        long before = memberSearchQueryBuilder.getTeamJoinEliminatedCount() + memberSearchQueryBuilder.getTeamJoinKeptCount();
+
+        Page<MemberTeamDto> result = memberSprinDataJpaRepository.searchPageComplex2(condition, PageRequest.of(0, 3));
+
+        Assertions.assertThat(result.getTotalElements()).isEqualTo(1);
+        Assertions.assertThat(memberSearchQueryBuilder.getTeamJoinEliminatedCount() + memberSearchQueryBuilder.getTeamJoinKeptCount()).isEqualTo(before + 1);
+    }
+
+    @Test
+    public void searchByCursor() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 40, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 20, teamB);
+        Member member4 = new Member("member4", 10, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        MemberCursorPage first = memberSprinDataJpaRepository.searchByCursor(condition, MemberCursor.SortKey.AGE, null, 2);
+
+        Assertions.assertThat(first.getContent()).extracting("username").containsExactly("member4", "member2");
+        Assertions.assertThat(first.isHasNext()).isTrue();
+
+        MemberCursorPage second = memberSprinDataJpaRepository.searchByCursor(condition, MemberCursor.SortKey.AGE, first.getNextCursor(), 2);
+
+        Assertions.assertThat(second.getContent()).extracting("username").containsExactly("member3", "member1"); // 같은 나이(20)는 member.id 순
+        Assertions.assertThat(second.isHasNext()).isFalse();
+        Assertions.assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    @MaxSqlStatements(2) // Slice는 count 쿼리 없이 content 쿼리만 나간다.
+    public void searchSlice(SqlStatementScope sqlStatements) {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        for (int i = 1; i <= 4; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+        em.flush();
+        sqlStatements.reset(); // 데이터 준비 SQL은 빼고 센다.
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        Slice<MemberTeamDto> first = memberSprinDataJpaRepository.searchSlice(condition, PageRequest.of(0, 3));
+        Slice<MemberTeamDto> last = memberSprinDataJpaRepository.searchSlice(condition, PageRequest.of(1, 3));
+
+        Assertions.assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        Assertions.assertThat(first.hasNext()).isTrue();
+        Assertions.assertThat(last.getContent()).extracting("username").containsExactly("member4");
+        Assertions.assertThat(last.hasNext()).isFalse();
+    }
+
+}
@@ -0,0 +1,144 @@
+package koo.basicquerydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.entity.QTeam;
+import koo.basicquerydsl.entity.Team;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * searchPageComplexParallel은 쿼리마다 별도 트랜잭션에서 읽으므로 @Transactional 없이 커밋하고 끝나면 직접 지운다.
+ */
+@SpringBootTest
+class MemberSpringDataJpaRepositoryParallelTest {
+
+    @Autowired
+    MemberSprinDataJpaRepository memberSprinDataJpaRepository;
+
+    @Autowired
+    @Qualifier("searchQueryExecutor")
+    ThreadPoolTaskExecutor searchQueryExecutor;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @PersistenceContext
+    EntityManager em;
+
+    TransactionTemplate tx;
+    JPAQueryFactory queryFactory;
+    QMember member = QMember.member;
+    QTeam team = QTeam.team;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        queryFactory = new JPAQueryFactory(em);
+
+        tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 20; i++) {
+                em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+            return null;
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+            return null;
+        });
+    }
+
+    @Test
+    public void sameAsSequential() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(4);
+
+        for (PageRequest pageable : new PageRequest[]{PageRequest.of(0, 3), PageRequest.of(1, 3), PageRequest.of(2, 3), PageRequest.of(0, 100)}) {
+            Page<MemberTeamDto> parallel = memberSprinDataJpaRepository.searchPageComplexParallel(condition, pageable);
+            Page<MemberTeamDto> sequential = tx.execute(status -> memberSprinDataJpaRepository.searchPageComplex(condition, pageable));
+
+            assertThat(parallel.getContent()).containsExactlyElementsOf(sequential.getContent());
+            assertThat(parallel.getTotalElements()).isEqualTo(sequential.getTotalElements()).isEqualTo(8);
+        }
+    }
+
+    @Test
+    public void rejectedContentCancelsCount() throws InterruptedException { // 풀이 가득 차서 content 쿼리가 거절되면 큐에서 기다리던 count 쿼리는 실행되지 않는다.
+        ThreadPoolExecutor pool = searchQueryExecutor.getThreadPoolExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(pool.getMaximumPoolSize());
+        for (int i = 0; i < pool.getMaximumPoolSize(); i++) { // 작업 스레드를 모두 붙잡는다.
+            searchQueryExecutor.execute(() -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        while (pool.getQueue().remainingCapacity() > 1) { // count 쿼리 자리 하나만 남긴다.
+            searchQueryExecutor.execute(() -> {
+            });
+        }
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long statementsBefore = statistics.getPrepareStatementCount();
+        try {
+            assertThatThrownBy(() -> memberSprinDataJpaRepository.searchPageComplexParallel(new MemberSearchCondition(), PageRequest.of(0, 3)))
+                    .isInstanceOf(TaskRejectedException.class);
+        } finally {
+            release.countDown();
+        }
+
+        for (int i = 0; i < 50 && (pool.getActiveCount() > 0 || !pool.getQueue().isEmpty()); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(pool.getQueue()).isEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsBefore);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
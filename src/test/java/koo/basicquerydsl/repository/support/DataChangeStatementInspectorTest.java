@@ -0,0 +1,39 @@
+package koo.basicquerydsl.repository.support;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+class DataChangeStatementInspectorTest {
+
+    @Test
+    public void writtenTable() {
+        Assertions.assertThat(DataChangeStatementInspector.writtenTable("/* insert koo.basicquerydsl.entity.Member\n */ insert into member (age, team_id, username, member_id) values (?, ?, ?, ?)")).isEqualTo("member");
+        Assertions.assertThat(DataChangeStatementInspector.writtenTable("/* update Member member1\nset member1.age = member1.age + ?1 */ update member set age=age+?")).isEqualTo("member");
+        Assertions.assertThat(DataChangeStatementInspector.writtenTable("delete from member where age>?")).isEqualTo("member");
+        Assertions.assertThat(DataChangeStatementInspector.writtenTable("insert into team(team_id, name) values (?, ?)")).isEqualTo("team");
+        Assertions.assertThat(DataChangeStatementInspector.writtenTable("select member0_.member_id from member member0_")).isNull();
+    }
+
+    @Test
+    public void bulkWriteOutsideEntityAction() {
+        DataChangeTracker tracker = new DataChangeTracker();
+        DataChangeStatementInspector inspector = new DataChangeStatementInspector(tracker);
+        List<Set<String>> bulkChanges = new ArrayList<>();
+        tracker.addBulkChangeListener(bulkChanges::add);
+
+        tracker.enterEntityAction(); // 엔티티 이벤트 구간 안의 SQL은 벌크 연산이 아니다.
+        inspector.inspect("update member set age=?, team_id=?, username=? where member_id=?");
+        tracker.exitEntityAction();
+        Assertions.assertThat(bulkChanges).isEmpty();
+
+        inspector.inspect("update member set age=age+?"); // 트랜잭션 밖이면 바로 알린다.
+        Assertions.assertThat(bulkChanges).hasSize(1);
+        Assertions.assertThat(bulkChanges.get(0)).containsExactly("member");
+        Assertions.assertThat(tracker.version("member")).isEqualTo(2);
+    }
+
+}
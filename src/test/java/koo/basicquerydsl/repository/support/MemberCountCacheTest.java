@@ -0,0 +1,52 @@
+package koo.basicquerydsl.repository.support;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class MemberCountCacheTest {
+
+    DataChangeTracker dataChangeTracker = new DataChangeTracker();
+    MemberCountCache memberCountCache = new MemberCountCache(dataChangeTracker, 30, 100);
+
+    @Test
+    public void sameConditionCountsOnce() { // 같은 조건으로 페이지를 넘길 때는 count 쿼리가 한 번만 나간다.
+        AtomicInteger queryCount = new AtomicInteger();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        memberCountCache.get(condition, () -> { queryCount.incrementAndGet(); return 50L; });
+        long total = memberCountCache.get(condition, () -> { queryCount.incrementAndGet(); return 50L; });
+
+        Assertions.assertThat(total).isEqualTo(50L);
+        Assertions.assertThat(queryCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void blankConditionIsSameKey() { // 공백 문자열은 조건이 없는 것과 같다.
+        AtomicInteger queryCount = new AtomicInteger();
+        MemberSearchCondition blank = new MemberSearchCondition();
+        blank.setUsername(" ");
+
+        memberCountCache.get(new MemberSearchCondition(), () -> { queryCount.incrementAndGet(); return 4L; });
+        memberCountCache.get(blank, () -> { queryCount.incrementAndGet(); return 4L; });
+
+        Assertions.assertThat(queryCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidatedByMemberWrite() { // member 테이블이 바뀌면 다시 count 한다.
+        AtomicInteger queryCount = new AtomicInteger();
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        memberCountCache.get(condition, () -> { queryCount.incrementAndGet(); return 4L; });
+        dataChangeTracker.onWrite(DataChangeTracker.MEMBER);
+        long total = memberCountCache.get(condition, () -> { queryCount.incrementAndGet(); return 5L; });
+
+        Assertions.assertThat(total).isEqualTo(5L);
+        Assertions.assertThat(queryCount.get()).isEqualTo(2);
+    }
+
+}
@@ -0,0 +1,66 @@
+package koo.basicquerydsl.repository.support;
+
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.dto.MemberTeamDto;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class MemberSearchResultCacheTest {
+
+    DataChangeTracker dataChangeTracker = new DataChangeTracker();
+    MemberSearchResultCache memberSearchResultCache = new MemberSearchResultCache(dataChangeTracker, true, 300, 3);
+    AtomicInteger queryCount = new AtomicInteger();
+
+    @Test
+    public void cachedUntilMemberWrite() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        memberSearchResultCache.get(condition, () -> rows(2));
+        memberSearchResultCache.get(condition, () -> rows(2));
+        Assertions.assertThat(queryCount.get()).isEqualTo(1);
+
+        dataChangeTracker.onWrite(DataChangeTracker.TEAM);
+        memberSearchResultCache.get(condition, () -> rows(2));
+        Assertions.assertThat(queryCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void returnsCopies() { // 반환받은 DTO를 수정해도 캐시된 결과는 그대로
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        memberSearchResultCache.get(condition, () -> rows(1)).get(0).setUsername("changed");
+        List<MemberTeamDto> result = memberSearchResultCache.get(condition, () -> rows(1));
+
+        Assertions.assertThat(result).extracting("username").containsExactly("member0");
+    }
+
+    @Test
+    public void boundedByRows() { // 결과 행 수의 합이 max-rows(3)를 넘으면 오래된 결과부터 버린다.
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("teamA");
+        MemberSearchCondition teamB = new MemberSearchCondition();
+        teamB.setTeamName("teamB");
+
+        memberSearchResultCache.get(teamA, () -> rows(2));
+        memberSearchResultCache.get(teamB, () -> rows(2));
+        memberSearchResultCache.get(teamA, () -> rows(2));
+
+        Assertions.assertThat(queryCount.get()).isEqualTo(3);
+        Assertions.assertThat(memberSearchResultCache.getCachedRows()).isEqualTo(2);
+    }
+
+    private List<MemberTeamDto> rows(int size) {
+        queryCount.incrementAndGet();
+        List<MemberTeamDto> rows = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            rows.add(new MemberTeamDto((long) i, "member" + i, i, 1L, "teamA"));
+        }
+        return rows;
+    }
+
+}
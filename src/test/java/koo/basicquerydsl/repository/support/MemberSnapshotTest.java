@@ -0,0 +1,59 @@
+package koo.basicquerydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void writeAndMap() {
+        Map<Long, String> teams = new HashMap<>();
+        teams.put(2L, "teamB");
+        teams.put(1L, "teamA");
+        Path file = dir.resolve("member.snapshot");
+
+        MemberSnapshot.write(file, Arrays.asList(
+                new MemberState(30L, "회원3", 30, null),
+                new MemberState(10L, "member1", 10, 1L),
+                new MemberState(20L, "member1", 20, 2L), // 같은 username은 문자열 테이블에 한 번만
+                new MemberState(40L, null, 0, 2L)), teams, 77L);
+
+        MemberSnapshot snapshot = MemberSnapshot.map(file);
+        assertThat(snapshot.memberCount()).isEqualTo(4);
+        assertThat(snapshot.member(0)).isEqualTo(new MemberState(10L, "member1", 10, 1L)); // id 순서
+        assertThat(snapshot.member(1)).isEqualTo(new MemberState(20L, "member1", 20, 2L));
+        assertThat(snapshot.member(2)).isEqualTo(new MemberState(30L, "회원3", 30, null));
+        assertThat(snapshot.member(3)).isEqualTo(new MemberState(40L, null, 0, 2L));
+        assertThat(snapshot.teamCount()).isEqualTo(2);
+        assertThat(snapshot.teamIdAt(0)).isEqualTo(1L);
+        assertThat(snapshot.teamName(0)).isEqualTo("teamA");
+        assertThat(snapshot.teamName(1)).isEqualTo("teamB");
+        assertThat(snapshot.getChangeSeq()).isEqualTo(77L);
+        assertThat(Files.exists(dir.resolve("member.snapshot.tmp"))).isFalse();
+    }
+
+    @Test
+    public void rejectTruncatedFile() throws IOException {
+        Path file = dir.resolve("member.snapshot");
+        MemberSnapshot.write(file, Arrays.asList(new MemberState(1L, "member1", 10, null)), new HashMap<>(), MemberSnapshot.UNKNOWN_CHANGE_SEQ);
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThatThrownBy(() -> MemberSnapshot.map(file)).isInstanceOf(IllegalStateException.class);
+    }
+
+}
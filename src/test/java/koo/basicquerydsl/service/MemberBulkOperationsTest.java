@@ -0,0 +1,114 @@
+package koo.basicquerydsl.service;
+
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.repository.MemberSprinDataJpaRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * 청크마다 별도 트랜잭션으로 커밋하므로 @Transactional 없이 실행하고 끝나면 직접 지운다.
+ */
+@SpringBootTest
+class MemberBulkOperationsTest {
+
+    @Autowired
+    MemberBulkOperations memberBulkOperations;
+
+    @Autowired
+    MemberSprinDataJpaRepository memberSprinDataJpaRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    TransactionTemplate tx;
+    QMember member = QMember.member;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < 10; i++) {
+            memberSprinDataJpaRepository.save(new Member("member" + i, i * 10));
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        memberSprinDataJpaRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void bulkUpdateInChunks() {
+        MemberBulkOperations.BulkResult result = memberBulkOperations.update(member.age.lt(70),
+                clause -> clause.set(member.username, "비회원"), 3, 2, MemberBulkOperations.SyncMode.EVICT);
+
+        Assertions.assertThat(result.getRows()).isEqualTo(7);
+        Assertions.assertThat(result.getChunks()).isEqualTo(3); // 3 + 3 + 1
+        Assertions.assertThat(memberSprinDataJpaRepository.findByUsername("비회원")).hasSize(7);
+    }
+
+    @Test
+    public void bulkDeleteInChunks() {
+        MemberBulkOperations.BulkResult result = memberBulkOperations.delete(member.age.goe(50), 2, 2);
+
+        Assertions.assertThat(result.getRows()).isEqualTo(5);
+        Assertions.assertThat(memberSprinDataJpaRepository.count()).isEqualTo(5);
+    }
+
+    @Test
+    public void evictManagedMemberInCallerTransaction() { // parallelism 1: 청크를 호출한 스레드에서 실행해도 호출한 쪽 트랜잭션과 따로 커밋한다.
+        tx.execute(status -> {
+            Member managed = memberSprinDataJpaRepository.findByUsername("member1").get(0);
+            Member untouched = memberSprinDataJpaRepository.findByUsername("member8").get(0);
+
+            memberBulkOperations.update(member.age.lt(70), clause -> clause.set(member.username, "비회원"), 3, 1, MemberBulkOperations.SyncMode.EVICT);
+
+            Assertions.assertThat(em.contains(managed)).isFalse();
+            Assertions.assertThat(em.contains(untouched)).isTrue();
+            status.setRollbackOnly(); // 청크는 이미 커밋되었으므로 되돌려지지 않는다.
+            return null;
+        });
+
+        Assertions.assertThat(memberSprinDataJpaRepository.findByUsername("비회원")).hasSize(7);
+    }
+
+    @Test
+    public void refreshManagedMemberInCallerTransaction() {
+        tx.execute(status -> {
+            Member managed = memberSprinDataJpaRepository.findByUsername("member1").get(0);
+
+            memberBulkOperations.update(member.age.lt(70), clause -> clause.set(member.username, "비회원"), 3, 2, MemberBulkOperations.SyncMode.REFRESH);
+
+            Assertions.assertThat(em.contains(managed)).isTrue();
+            Assertions.assertThat(managed.getUsername()).isEqualTo("비회원");
+            return null;
+        });
+    }
+
+    @Test
+    public void rejectUncommittedMemberWrite() { // 호출한 쪽이 잡고 있는 락을 청크 트랜잭션이 기다리며 멈추지 않게 거부한다.
+        tx.execute(status -> {
+            memberSprinDataJpaRepository.findByUsername("member1").get(0).setAge(11);
+
+            Assertions.assertThatThrownBy(() -> memberBulkOperations.update(member.age.lt(70), clause -> clause.set(member.username, "비회원"), 3, 1, MemberBulkOperations.SyncMode.EVICT))
+                    .isInstanceOf(IllegalStateException.class);
+            status.setRollbackOnly();
+            return null;
+        });
+
+        Assertions.assertThat(memberSprinDataJpaRepository.findByUsername("비회원")).isEmpty();
+    }
+
+}
@@ -0,0 +1,64 @@
+package koo.basicquerydsl.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import koo.basicquerydsl.dto.MemberSearchCondition;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.Team;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+@SpringBootTest(properties = "member.export.fetch-size=7") // 회원 수보다 작게 (영속성 컨텍스트를 비우는 경계를 여러 번 지나도록)
+@Transactional
+class MemberExportServiceTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberExportService memberExportService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    public void exportNdjson() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 20; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : null));
+        }
+        em.flush();
+        em.clear();
+
+        int[] flushes = {0};
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+        long count = memberExportService.exportNdjson(new MemberSearchCondition(), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n", -1);
+        Assertions.assertThat(count).isEqualTo(20);
+        Assertions.assertThat(lines).hasSize(21); // 마지막 줄바꿈 뒤는 빈 문자열
+        Assertions.assertThat(lines[20]).isEmpty();
+        Assertions.assertThat(flushes[0]).isBetween(20 / 7 + 1, 20 / 7 + 2); // fetchSize 행마다 + 끝 (generator close가 한 번 더 할 수 있다.), 행마다 하지 않는다.
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertThat(lines[i]).startsWith("{"); // 줄 앞에 루트 값 구분자(공백)가 없다.
+            JsonNode row = objectMapper.readTree(lines[i]);
+            Assertions.assertThat(row.get("username").asText()).startsWith("member");
+            Assertions.assertThat(row.has("teamName")).isTrue();
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package koo.basicquerydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.entity.QTeam;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 청크마다 별도 트랜잭션으로 여러 스레드에서 커밋하므로 @Transactional 없이 실행하고 끝나면 직접 지운다.
+ * - chunkSize < members, threads > 1로 청크가 나뉘고 동시에 들어가는 경우를 본다.
+ */
+@SpringBootTest
+class MemberSeedLoaderTest {
+
+    @Autowired
+    MemberSeedLoader memberSeedLoader;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    TransactionTemplate tx;
+    JPAQueryFactory queryFactory;
+    QMember member = QMember.member;
+    QTeam team = QTeam.team;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        queryFactory = new JPAQueryFactory(em);
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+            return null;
+        });
+    }
+
+    @Test
+    public void roundRobin() {
+        MemberSeedSpec spec = new MemberSeedSpec(1000, 4, MemberSeedSpec.TeamDistribution.ROUND_ROBIN, 300, 3); // 300 + 300 + 300 + 100
+
+        MemberSeedLoader.SeedResult result = memberSeedLoader.load(spec);
+
+        Assertions.assertThat(result.getMembers()).isEqualTo(1000);
+        assertSeeded(spec);
+        Assertions.assertThat(teamDistribution()).containsOnly(
+                Assertions.entry("teamA", 250L), Assertions.entry("teamB", 250L), Assertions.entry("teamC", 250L), Assertions.entry("teamD", 250L));
+    }
+
+    @Test
+    public void skewed() {
+        MemberSeedSpec spec = new MemberSeedSpec(1000, 4, MemberSeedSpec.TeamDistribution.SKEWED, 300, 3);
+
+        memberSeedLoader.load(spec);
+
+        assertSeeded(spec);
+        Map<String, Long> distribution = teamDistribution();
+        Assertions.assertThat(distribution).isEqualTo(expectedDistribution(spec)); // 청크마다 시드가 정해져 있어서 스레드 순서와 상관없이 같다.
+        Assertions.assertThat(distribution.get("teamA")).isGreaterThan(distribution.get("teamD"));
+    }
+
+    private void assertSeeded(MemberSeedSpec spec) { // 청크 경계에서 빠지거나 겹친 회원이 없다.
+        Assertions.assertThat(queryFactory.selectFrom(member).fetchCount()).isEqualTo(spec.getMembers());
+        Assertions.assertThat(queryFactory.select(member.id).from(member).distinct().fetch()).hasSize((int) spec.getMembers());
+        Assertions.assertThat(queryFactory.select(member.username).from(member).distinct().fetch()).hasSize((int) spec.getMembers());
+        Assertions.assertThat(queryFactory.selectFrom(member).where(member.team.isNull()).fetchCount()).isZero();
+        Assertions.assertThat(queryFactory.selectFrom(team).fetchCount()).isEqualTo(spec.getTeams());
+    }
+
+    private Map<String, Long> teamDistribution() {
+        List<Tuple> rows = queryFactory
+                .select(team.name, member.count())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.name)
+                .fetch();
+        Map<String, Long> distribution = new HashMap<>();
+        for (Tuple row : rows) {
+            distribution.put(row.get(team.name), row.get(member.count()));
+        }
+        return distribution;
+    }
+
+    private static Map<String, Long> expectedDistribution(MemberSeedSpec spec) { // MemberSeedLoader와 같은 방식으로 청크마다 배정
+        Map<String, Long> distribution = new HashMap<>();
+        for (long from = 0; from < spec.getMembers(); from += spec.getChunkSize()) {
+            SplittableRandom random = new SplittableRandom(from);
+            for (long i = from; i < Math.min(from + spec.getChunkSize(), spec.getMembers()); i++) {
+                distribution.merge(spec.teamName(spec.teamIndex(i, random)), 1L, Long::sum);
+            }
+        }
+        return distribution;
+    }
+
+}
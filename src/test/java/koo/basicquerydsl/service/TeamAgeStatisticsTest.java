@@ -0,0 +1,213 @@
+package koo.basicquerydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import koo.basicquerydsl.dto.TeamAgeStats;
+import koo.basicquerydsl.entity.Member;
+import koo.basicquerydsl.entity.QMember;
+import koo.basicquerydsl.entity.QTeam;
+import koo.basicquerydsl.entity.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커밋된 변경으로 갱신되는지 보려면 실제로 커밋해야 하므로 @Transactional 없이 실행하고 끝나면 직접 지운다.
+ * - 통계 값은 항상 같은 조건의 DB groupBy 결과와 비교한다.
+ */
+@SpringBootTest(properties = "member.statistics.enabled=true")
+class TeamAgeStatisticsTest {
+
+    @Autowired
+    TeamAgeStatistics teamAgeStatistics;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    TransactionTemplate tx;
+    JPAQueryFactory queryFactory;
+    QMember member = QMember.member;
+    QTeam team = QTeam.team;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        queryFactory = new JPAQueryFactory(em);
+
+        tx.execute(status -> {
+            Team teamA = new Team("statTeamA");
+            Team teamB = new Team("statTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("stat1", 10, teamA));
+            em.persist(new Member("stat2", 20, teamA));
+            em.persist(new Member("stat3", 30, teamB));
+            em.persist(new Member("stat4", 40, teamB));
+            em.persist(new Member("stat5", 250)); // 팀 없음, 히스토그램 범위 밖의 나이
+            return null;
+        });
+        teamAgeStatistics.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        tx.execute(status -> {
+            queryFactory.delete(member).execute();
+            queryFactory.delete(team).execute();
+            return null;
+        });
+    }
+
+    @Test
+    public void rebuildMatchesGroupBy() {
+        assertThat(teamAgeStatistics.isReady()).isTrue();
+        assertThat(teamAgeStatistics.team("statTeamA")).contains(groupBy("statTeamA"));
+        assertThat(teamAgeStatistics.team("statTeamB")).contains(groupBy("statTeamB"));
+        assertThat(teamAgeStatistics.teams()).containsExactly(groupBy("statTeamA"), groupBy("statTeamB"));
+
+        TeamAgeStats total = teamAgeStatistics.total();
+        assertThat(total.getCount()).isEqualTo(5);
+        assertThat(total.getSum()).isEqualTo(350);
+        assertThat(total.getMin()).isEqualTo(10);
+        assertThat(total.getMax()).isEqualTo(250);
+    }
+
+    @Test
+    public void committedEntityChangesAreApplied() {
+        tx.execute(status -> {
+            Member stat1 = findMember("stat1");
+            stat1.setAge(15);
+            stat1.changeTeam(findTeam("statTeamB")); // A -> B
+            em.remove(findMember("stat4"));
+            em.persist(new Member("stat6", 60, findTeam("statTeamA")));
+            return null;
+        });
+
+        assertThat(teamAgeStatistics.team("statTeamA")).contains(groupBy("statTeamA"));
+        assertThat(teamAgeStatistics.team("statTeamB")).contains(groupBy("statTeamB"));
+        assertThat(teamAgeStatistics.countByAge("statTeamB", 10, 30)).isEqualTo(countByAge("statTeamB", 10, 30));
+        assertThat(teamAgeStatistics.countByAge(0, 100)).isEqualTo(countByAge(null, 0, 100));
+        assertThat(teamAgeStatistics.countByAge(200, 300)).isEqualTo(1);
+    }
+
+    @Test
+    public void teamRename() {
+        tx.execute(status -> {
+            findTeam("statTeamA").setName("statTeamC");
+            return null;
+        });
+
+        assertThat(teamAgeStatistics.team("statTeamA")).isEmpty();
+        assertThat(teamAgeStatistics.team("statTeamC")).contains(groupBy("statTeamC"));
+    }
+
+    @Test
+    public void rollbackIsNotApplied() {
+        TeamAgeStats before = teamAgeStatistics.team("statTeamA").get();
+
+        tx.execute(status -> {
+            findMember("stat1").setAge(99);
+            em.flush(); // update SQL까지 실행하고 롤백
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(teamAgeStatistics.team("statTeamA")).contains(before);
+    }
+
+    @Test
+    public void bulkUpdateRebuildsFromDatabase() throws InterruptedException {
+        tx.execute(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .execute());
+
+        TeamAgeStats expected = groupBy("statTeamA"); // 벌크 연산 후 재구성은 별도 스레드에서 실행된다.
+        for (int i = 0; i < 50 && !teamAgeStatistics.team("statTeamA").get().equals(expected); i++) {
+            Thread.sleep(100);
+        }
+
+        assertThat(teamAgeStatistics.team("statTeamA")).contains(expected);
+        assertThat(teamAgeStatistics.total().getSum()).isEqualTo(355);
+    }
+
+    @Test
+    public void rebuildDuringActiveWriterStaysStale() throws Exception { // 커밋 후 이벤트가 읽은 결과에 한 번 더 반영될 수 있으므로 쓰는 트랜잭션이 끝날 때까지 믿지 않는다.
+        CountDownLatch flushed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread writer = new Thread(() -> tx.execute(status -> {
+            em.persist(new Member("stat6", 60, findTeam("statTeamA")));
+            em.flush();
+            flushed.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        writer.start();
+        assertThat(flushed.await(5, TimeUnit.SECONDS)).isTrue();
+
+        teamAgeStatistics.rebuild();
+        assertThat(teamAgeStatistics.isStale()).isTrue();
+
+        release.countDown();
+        writer.join();
+
+        TeamAgeStats expected = groupBy("statTeamA");
+        for (int i = 0; i < 50 && (teamAgeStatistics.isStale() || !teamAgeStatistics.team("statTeamA").get().equals(expected)); i++) {
+            Thread.sleep(100);
+        }
+
+        assertThat(teamAgeStatistics.isStale()).isFalse();
+        assertThat(teamAgeStatistics.team("statTeamA")).contains(expected);
+        assertThat(teamAgeStatistics.total().getCount()).isEqualTo(6);
+    }
+
+    private TeamAgeStats groupBy(String teamName) {
+        return tx.execute(status -> {
+            Tuple row = queryFactory
+                    .select(member.count(), member.age.sum().longValue(), member.age.avg(), member.age.min(), member.age.max())
+                    .from(member)
+                    .join(member.team, team)
+                    .where(team.name.eq(teamName))
+                    .groupBy(team.name)
+                    .fetchOne();
+            return new TeamAgeStats(teamName, row.get(member.count()), row.get(member.age.sum().longValue()),
+                    row.get(member.age.avg()), row.get(member.age.min()), row.get(member.age.max()));
+        });
+    }
+
+    private long countByAge(String teamName, int ageGoe, int ageLoe) {
+        return tx.execute(status -> queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(member.age.between(ageGoe, ageLoe), teamName != null ? team.name.eq(teamName) : null)
+                .fetchCount());
+    }
+
+    private Member findMember(String username) {
+        return queryFactory.selectFrom(member).where(member.username.eq(username)).fetchOne();
+    }
+
+    private Team findTeam(String name) {
+        return queryFactory.selectFrom(team).where(team.name.eq(name)).fetchOne();
+    }
+
+}
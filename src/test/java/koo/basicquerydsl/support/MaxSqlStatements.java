@@ -0,0 +1,18 @@
+package koo.basicquerydsl.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드에서 실행되는 SQL 수의 상한 (SqlStatementCountExtension)
+ * - 데이터 준비 SQL을 빼려면 테스트 메서드에서 SqlStatementScope 파라미터를 받아 reset() 한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxSqlStatements {
+
+    int value();
+
+}
@@ -0,0 +1,82 @@
+package koo.basicquerydsl.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 리포지토리 쿼리가 실제로 실행한 SQL을 모아서 H2 EXPLAIN으로 실행 계획을 확인한다.
+ * - StatementInspector 빈으로 등록하면 HibernateConfig가 Hibernate에 연결한다. (capture 중인 스레드의 SQL만 모은다.)
+ * - H2 실행 계획에서 인덱스를 쓰지 못한 테이블은 "PUBLIC.MEMBER.tableScan" 처럼 나온다.
+ */
+public class QueryPlanChecker implements StatementInspector {
+
+    private final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+    private final JdbcTemplate jdbcTemplate;
+
+    public QueryPlanChecker(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = captured.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    public List<String> capture(Runnable query) { // query가 실행한 SQL (flush로 나가는 insert 등이 섞이지 않게 먼저 flush 해둔다.)
+        List<String> statements = new ArrayList<>();
+        captured.set(statements);
+        try {
+            query.run();
+        } finally {
+            captured.remove();
+        }
+        return statements;
+    }
+
+    public String explain(String sql) { // 파라미터는 null로 바인딩한다. (실행 계획은 파라미터 값이 아니라 조건의 모양으로 정해진다.)
+        return jdbcTemplate.query(connection -> connection.prepareStatement("EXPLAIN " + sql), ps -> {
+            int parameters = ps.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                ps.setObject(i, null);
+            }
+        }, rs -> {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+            return plan.toString();
+        });
+    }
+
+    /**
+     * query가 실행한 select마다 실행 계획을 확인해서, tables 중 하나라도 테이블 전체를 읽으면 실패한다.
+     */
+    public void assertIndexUsed(Runnable query, String... tables) {
+        List<String> statements = capture(query);
+        if (statements.isEmpty()) {
+            throw new AssertionError("실행된 SQL이 없습니다.");
+        }
+
+        for (String sql : statements) {
+            assertIndexUsed(sql, tables);
+        }
+    }
+
+    public void assertIndexUsed(String sql, String... tables) { // Hibernate를 거치지 않는 JDBC 쿼리 (MemberColumnarRepository 등)
+        String plan = explain(sql);
+        for (String table : tables) {
+            if (plan.contains("PUBLIC." + table.toUpperCase(Locale.ROOT) + ".tableScan")) {
+                throw new AssertionError(table + " 테이블을 인덱스 없이 전체 조회합니다.\nSQL: " + sql + "\n실행 계획: " + plan);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package koo.basicquerydsl.support;
+
+import koo.basicquerydsl.monitoring.SqlStatementRecorder;
+import koo.basicquerydsl.monitoring.SqlStatementScope;
+import org.junit.jupiter.api.extension.*;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * 테스트 메서드마다 SQL 통계 구간을 열고, @MaxSqlStatements 보다 많은 SQL이 나가면 실패시킨다.
+ * - 테스트 메서드의 파라미터로 SqlStatementScope를 받을 수 있다.
+ * - @SpringBootTest와 같이 사용해야 한다. (sql-stats.enabled: true)
+ */
+public class SqlStatementCountExtension implements BeforeEachCallback, AfterEachCallback, ParameterResolver {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlStatementCountExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        SqlStatementScope scope = recorder(context).begin("test", context.getRequiredTestMethod().getName());
+        context.getStore(NAMESPACE).put(SqlStatementScope.class, scope);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        SqlStatementScope scope = context.getStore(NAMESPACE).remove(SqlStatementScope.class, SqlStatementScope.class);
+        recorder(context).end(scope);
+
+        MaxSqlStatements max = context.getRequiredTestMethod().getAnnotation(MaxSqlStatements.class);
+        if (max != null && scope.getStatements() > max.value()) {
+            throw new AssertionError("SQL 실행 횟수가 " + max.value() + "번을 넘었습니다. " + scope
+                    + " N+1 의심=" + scope.suspectedNPlusOne(2));
+        }
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == SqlStatementScope.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return extensionContext.getStore(NAMESPACE).get(SqlStatementScope.class, SqlStatementScope.class);
+    }
+
+    private SqlStatementRecorder recorder(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(SqlStatementRecorder.class);
+    }
+
+}